@@ -0,0 +1,123 @@
+package benchmarks;
+
+import backend.Board;
+import backend.BoardSnapshot;
+import backend.Move;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Board construction, the stock and every move path. Moves are measured
+ * together with the undo that restores the position, so that every invocation
+ * starts from the same board. Snapshots are compared with full copies after
+ * the same move.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    private long dealNumber;
+    private Board board;
+    private Board stock;
+
+    private Board wasteToFoundation;
+    private Board wasteToTableau;
+    private Board tableauToFoundation;
+    private Board tableauToTableau;
+    private int[] moves;
+
+    @Setup
+    public void setup() {
+        this.board = new Board(0);
+        this.stock = new Board(0);
+        this.moves = new int[5];
+        int[] move = new int[1];
+        this.wasteToFoundation = Positions.withMove(Move.WASTE_TO_FOUNDATION, move);
+        this.moves[Move.WASTE_TO_FOUNDATION] = move[0];
+        this.wasteToTableau = Positions.withMove(Move.WASTE_TO_TABLEAU, move);
+        this.moves[Move.WASTE_TO_TABLEAU] = move[0];
+        this.tableauToFoundation = Positions.withMove(Move.TABLEAU_TO_FOUNDATION, move);
+        this.moves[Move.TABLEAU_TO_FOUNDATION] = move[0];
+        this.tableauToTableau = Positions.withMove(Move.TABLEAU_TO_TABLEAU, move);
+        this.moves[Move.TABLEAU_TO_TABLEAU] = move[0];
+    }
+
+    @Benchmark
+    public Board construct() {
+        return new Board(this.dealNumber++);
+    }
+
+    @Benchmark
+    public Board redeal() {
+        this.board.deal(this.dealNumber++);
+        return this.board;
+    }
+
+    @Benchmark
+    public Board iterateStock() {
+        this.stock.iterateStock();
+        return this.stock;
+    }
+
+    @Benchmark
+    public boolean moveFromWasteToFoundation() {
+        int move = this.moves[Move.WASTE_TO_FOUNDATION];
+        boolean moved = this.wasteToFoundation.moveFromWasteToFoundation(Move.from(move), Move.to(move));
+        this.wasteToFoundation.undo();
+        return moved;
+    }
+
+    @Benchmark
+    public boolean moveFromWasteToTableau() {
+        int move = this.moves[Move.WASTE_TO_TABLEAU];
+        boolean moved = this.wasteToTableau.moveFromWasteToTableau(Move.from(move), Move.to(move));
+        this.wasteToTableau.undo();
+        return moved;
+    }
+
+    @Benchmark
+    public boolean moveFromTableauToFoundation() {
+        int move = this.moves[Move.TABLEAU_TO_FOUNDATION];
+        boolean moved = this.tableauToFoundation.moveFromTableauToFoundation(Move.from(move), Move.to(move));
+        this.tableauToFoundation.undo();
+        return moved;
+    }
+
+    @Benchmark
+    public boolean moveFromTableauToTableau() {
+        int move = this.moves[Move.TABLEAU_TO_TABLEAU];
+        boolean moved = this.tableauToTableau.moveFromTableauToTableau(Move.from(move), Move.to(move));
+        this.tableauToTableau.undo();
+        return moved;
+    }
+
+    @Benchmark
+    public BoardSnapshot snapshotAfterMove() {
+        this.tableauToTableau.apply(this.moves[Move.TABLEAU_TO_TABLEAU]);
+        BoardSnapshot snapshot = this.tableauToTableau.snapshot();
+        this.tableauToTableau.undo();
+        return snapshot;
+    }
+
+    @Benchmark
+    public Board copyAfterMove() {
+        this.tableauToTableau.apply(this.moves[Move.TABLEAU_TO_TABLEAU]);
+        Board copy = new Board(this.tableauToTableau);
+        this.tableauToTableau.undo();
+        return copy;
+    }
+}
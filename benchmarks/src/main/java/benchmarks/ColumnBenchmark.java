@@ -0,0 +1,54 @@
+package benchmarks;
+
+import backend.Board;
+import backend.Card.Card;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/* Reading a tableau column of a given depth, as the GUI does on every paint. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ColumnBenchmark {
+    @Param({ "1", "8", "16", "24" })
+    public int depth;
+
+    private Board board;
+    private Card[] buffer;
+
+    @Setup
+    public void setup() {
+        this.board = Positions.withColumnDepth(this.depth);
+        this.buffer = new Card[Board.DECK_SIZE];
+    }
+
+    @Benchmark
+    public Card[] getView() {
+        return this.board.getTableauCards(0);
+    }
+
+    @Benchmark
+    public int getViewIntoBuffer() {
+        return this.board.getTableauCards(0, this.buffer);
+    }
+
+    @Benchmark
+    public Card getTopCard() {
+        return this.board.getTableauCard(0, this.board.getTableauSize(0) - 1);
+    }
+}
@@ -0,0 +1,54 @@
+package benchmarks;
+
+import backend.Board;
+import backend.Move;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/* Uniformly random playouts of at most MAX_MOVES moves from fresh deals. */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayoutBenchmark {
+    private static final int MAX_MOVES = 500;
+
+    private long dealNumber;
+    private Board board;
+    private int[] moves;
+    private SplittableRandom random;
+
+    @Setup
+    public void setup() {
+        this.board = new Board(0);
+        this.moves = new int[Move.MAX_MOVES];
+        this.random = new SplittableRandom(0);
+    }
+
+    @Benchmark
+    public boolean playout() {
+        this.board.deal(this.dealNumber++);
+        for (int i = 0; i < MAX_MOVES && !this.board.isWon(); i += 1) {
+            int count = this.board.generateMoves(this.moves);
+            if (count == 0) {
+                break;
+            }
+            this.board.apply(this.moves[this.random.nextInt(count)]);
+        }
+        return this.board.isWon();
+    }
+}
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import backend.Board;
+import backend.Move;
+
+import java.util.SplittableRandom;
+
+/* Builds reproducible positions for the benchmarks through the public Board API. */
+final class Positions {
+    private static final int MAX_STEPS = 10_000;
+
+    private Positions() {
+    }
+
+    /**
+     * Play random moves from deal 0 onwards until a move of the given kind is
+     * legal.
+     *
+     * @return the board, with the move stored in move[0].
+     */
+    static Board withMove(int kind, int[] move) {
+        int[] moves = new int[Move.MAX_MOVES];
+        SplittableRandom random = new SplittableRandom(kind);
+        for (long deal = 0;; deal += 1) {
+            Board board = new Board(deal);
+            for (int step = 0; step < MAX_STEPS; step += 1) {
+                int count = board.generateMoves(moves);
+                for (int i = 0; i < count; i += 1) {
+                    if (Move.kind(moves[i]) == kind) {
+                        move[0] = moves[i];
+                        return board;
+                    }
+                }
+                if (count == 0) {
+                    break;
+                }
+                board.apply(moves[random.nextInt(count)]);
+            }
+        }
+    }
+
+    /* Play moves onto tableau column 0 until it holds at least depth cards. */
+    static Board withColumnDepth(int depth) {
+        int[] moves = new int[Move.MAX_MOVES];
+        SplittableRandom random = new SplittableRandom(depth);
+        for (long deal = 0;; deal += 1) {
+            Board board = new Board(deal);
+            for (int step = 0; step < MAX_STEPS && board.getTableauSize(0) < depth; step += 1) {
+                int count = board.generateMoves(moves);
+                int chosen = -1;
+                for (int i = 0; i < count; i += 1) {
+                    if (Move.isToTableau(moves[i]) && Move.to(moves[i]) == 0
+                            && !(Move.kind(moves[i]) == Move.TABLEAU_TO_TABLEAU && Move.from(moves[i]) == 0)) {
+                        chosen = moves[i];
+                        break;
+                    }
+                }
+                if (chosen < 0) {
+                    chosen = board.isStockMovable() ? Move.of(Move.STOCK, 0, 0) : moves[random.nextInt(count)];
+                }
+                board.apply(chosen);
+            }
+            if (board.getTableauSize(0) >= depth) {
+                return board;
+            }
+        }
+    }
+}
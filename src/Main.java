@@ -1,10 +1,275 @@
+import backend.Autosave;
 import backend.Board;
+import backend.DealCatalog;
+import backend.DealCatalogWriter;
+import backend.GameRecordReader;
+import backend.GameRecordWriter;
+import backend.GreedyPolicy;
+import backend.Policy;
+import backend.RandomPolicy;
+import backend.Simulation;
+import backend.SolverFarm;
+import backend.SolverPolicy;
+import backend.StatsRecorder;
+import backend.WinEstimate;
+import backend.WinEstimator;
 import frontend.GUI;
+import metrics.Metrics;
+import server.GameServer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 public class Main {
-    public static void main(String[] args) {
-        Board board = new Board();
+    /* How often a simulation prints its progress. */
+    private static final long REPORT_MILLIS = 10_000;
+
+    /* Where the game in progress is saved, and how long exiting waits for the last save. */
+    private static final Path AUTOSAVE = Paths.get(System.getProperty("user.home"), ".solitaire", "autosave.bin");
+    private static final long AUTOSAVE_CLOSE_MILLIS = 1_000;
+
+    /* The catalog of surveyed deals new games are picked from, if it exists. */
+    private static final Path DEAL_CATALOG = AUTOSAVE.resolveSibling("deals.bin");
+
+    /* The log of every finished game, and the stats aggregated from it. */
+    private static final Path HISTORY = AUTOSAVE.resolveSibling("history.bin");
+    private static final Path STATS = AUTOSAVE.resolveSibling("stats.bin");
+
+    /* Where the metrics of the last game session are written on exit. */
+    private static final Path METRICS_REPORT = AUTOSAVE.resolveSibling("metrics.txt");
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0 && args[0].equals("survey")) {
+            survey(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("catalog")) {
+            catalog(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("simulate")) {
+            simulate(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("replay")) {
+            replay(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("odds")) {
+            odds(args);
+            return;
+        }
+        if (args.length > 0 && args[0].equals("serve")) {
+            serve(args);
+            return;
+        }
+        /* Mapped once for the whole session; the mapping lasts until exit. */
+        DealCatalog catalog = null;
+        if (Files.isRegularFile(DEAL_CATALOG)) {
+            try {
+                catalog = new DealCatalog(DEAL_CATALOG);
+            } catch (IOException e) {
+                System.err.println("Could not read the deal catalog: " + e.getMessage());
+            }
+        }
+        DealCatalog deals = catalog;
+        Board board = Autosave.restore(AUTOSAVE, () -> new Board(newDeal(deals)));
+        Autosave autosave = new Autosave(AUTOSAVE);
+        board.addListener(autosave);
+        StatsRecorder stats = null;
+        try {
+            stats = StatsRecorder.open(HISTORY, STATS);
+            stats.start(board);
+            board.addListener(stats);
+        } catch (IOException e) {
+            System.err.println("Could not open the game history: " + e.getMessage());
+        }
+        StatsRecorder recorder = stats;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                autosave.close(AUTOSAVE_CLOSE_MILLIS);
+                if (recorder != null) {
+                    recorder.close(AUTOSAVE_CLOSE_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (autosave.getFailure() != null) {
+                System.err.println("Could not save the game: " + autosave.getFailure().getMessage());
+            }
+            if (recorder != null && recorder.getFailure() != null) {
+                System.err.println("Could not save the stats: " + recorder.getFailure().getMessage());
+            }
+            if (Metrics.ENABLED) {
+                try {
+                    Files.createDirectories(METRICS_REPORT.getParent());
+                    Files.writeString(METRICS_REPORT, Metrics.report());
+                } catch (IOException e) {
+                    System.err.println("Could not write the metrics: " + e.getMessage());
+                }
+            }
+        }));
+        Runnable ui = new GUI(board, () -> newDeal(deals), recorder);
+        ui.run();
+    }
+
+    /* survey <first seed> <count> <output file> [threads] [cache megabytes] */
+    private static void survey(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: java Main survey <first seed> <count> <output file> [threads] [cache megabytes]");
+            System.exit(2);
+        }
+        long first = Long.parseLong(args[1]);
+        long count = Long.parseLong(args[2]);
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+        long cacheBytes = args.length > 5 ? Long.parseLong(args[5]) << 20 : SolverFarm.DEFAULT_CACHE_BYTES;
+
+        SolverFarm farm = new SolverFarm(threads, SolverFarm.DEFAULT_NODES, SolverFarm.DEFAULT_HARD_NODES,
+                SolverFarm.DEFAULT_MAX_MILLIS, cacheBytes);
+        try {
+            System.out.println(farm.survey(first, count, Paths.get(args[3])));
+        } finally {
+            farm.shutdown();
+        }
+    }
+
+    /* A winnable deal from catalog, or any deal if there is no catalog or no winnable deal in it. */
+    private static long newDeal(DealCatalog catalog) {
+        long deal = catalog == null ? -1 : catalog.sample(0, DealCatalog.MAX_DIFFICULTY, ThreadLocalRandom.current());
+        return deal >= 0 ? deal : ThreadLocalRandom.current().nextLong();
+    }
+
+    /* catalog <output file> <survey file>... */
+    private static void catalog(String[] args) throws IOException {
+        if (args.length < 3) {
+            System.err.println("Usage: java Main catalog <output file> <survey file>...");
+            System.exit(2);
+        }
+        List<Path> surveys = new ArrayList<>();
+        for (int i = 2; i < args.length; i += 1) {
+            surveys.add(Paths.get(args[i]));
+        }
+        long start = System.nanoTime();
+        long deals = DealCatalogWriter.write(surveys, Paths.get(args[1]));
+        try (DealCatalog catalog = new DealCatalog(Paths.get(args[1]))) {
+            System.out.printf("%d deals cataloged, %d winnable, in %.2f s%n", deals, catalog.getWinnableCount(),
+                    (System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    /* simulate <random|greedy|solver> <first deal> <count> [threads] [record file] */
+    private static void simulate(String[] args) throws IOException, InterruptedException {
+        if (args.length < 4) {
+            System.err.println(
+                    "Usage: java Main simulate <random|greedy|solver> <first deal> <count> [threads] [record file]");
+            System.exit(2);
+        }
+        long first = Long.parseLong(args[2]);
+        long count = Long.parseLong(args[3]);
+        int threads = args.length > 4 ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+
+        Supplier<Policy> policies;
+        switch (args[1]) {
+            case "random":
+                AtomicLong seeds = new AtomicLong(first);
+                policies = () -> new RandomPolicy(seeds.getAndIncrement());
+                break;
+            case "greedy":
+                policies = GreedyPolicy::new;
+                break;
+            case "solver":
+                policies = () -> new SolverPolicy(SolverFarm.DEFAULT_NODES, SolverFarm.DEFAULT_MAX_MILLIS);
+                break;
+            default:
+                System.err.println("Unknown policy: " + args[1]);
+                System.exit(2);
+                return;
+        }
+
+        if (args.length <= 5) {
+            Simulation simulation = new Simulation(threads, policies, Simulation.DEFAULT_MAX_MOVES);
+            System.out.println(simulation.run(first, count, REPORT_MILLIS, report -> System.out.println("... " + report)));
+            return;
+        }
+        Path records = Paths.get(args[5]);
+        try (GameRecordWriter writer = new GameRecordWriter(records, recordIndex(records))) {
+            long before = writer.getGameCount();
+            Simulation simulation = new Simulation(threads, policies, Simulation.DEFAULT_MAX_MOVES, writer);
+            System.out.println(simulation.run(first, count, REPORT_MILLIS, report -> System.out.println("... " + report)));
+            System.out.printf("games %d to %d recorded in %s%n", before, writer.getGameCount() - 1, records);
+        }
+    }
+
+    /* replay <record file> <game> <move> */
+    private static void replay(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: java Main replay <record file> <game> <move>");
+            System.exit(2);
+        }
+        Path records = Paths.get(args[1]);
+        long game = Long.parseLong(args[2]);
+        int move = Integer.parseInt(args[3]);
+
+        Board board;
+        try (GameRecordReader reader = new GameRecordReader(records, recordIndex(records))) {
+            int count = reader.getMoveCount(game);
+            board = reader.replay(game, move);
+            /* Play the rest of the game and take it back, so that it can be played again move by move. */
+            for (int i = move; i < count; i += 1) {
+                board.apply(reader.getMove(game, i));
+            }
+            for (int i = move; i < count; i += 1) {
+                board.undo();
+            }
+            System.out.printf("game %d: deal %d, move %d of %d%n", game, board.getDealNumber(), move, count);
+        }
         Runnable ui = new GUI(board);
         ui.run();
     }
+
+    /* The index of a record file is kept next to it. */
+    private static Path recordIndex(Path records) {
+        return records.resolveSibling(records.getFileName() + ".idx");
+    }
+
+    /* odds <deal> [millis] [threads] */
+    private static void odds(String[] args) throws InterruptedException {
+        if (args.length < 2) {
+            System.err.println("Usage: java Main odds <deal> [millis] [threads]");
+            System.exit(2);
+        }
+        Board board = new Board(Long.parseLong(args[1]));
+        long millis = args.length > 2 ? Long.parseLong(args[2]) : WinEstimator.DEFAULT_MILLIS;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        WinEstimator estimator = new WinEstimator(threads);
+        try {
+            for (WinEstimate estimate : estimator.estimate(board, millis)) {
+                System.out.println(estimate);
+            }
+        } finally {
+            estimator.shutdown();
+        }
+    }
+
+    /* serve [port] */
+    private static void serve(String[] args) throws IOException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+        GameServer server = new GameServer(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.stop(1);
+            if (Metrics.ENABLED) {
+                System.out.print(Metrics.report());
+            }
+        }));
+        server.start();
+        System.out.println("Serving games on http://localhost:" + server.getPort() + "/games");
+    }
 }
@@ -0,0 +1,42 @@
+package backend;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Replaces files atomically: the new contents are written to a temporary file
+ * next to the file, which is then moved over it, so that the file always holds
+ * either its old or its new contents in full. On file systems without atomic
+ * moves the move is a plain one.
+ */
+final class AtomicFiles {
+    private AtomicFiles() {
+    }
+
+    /* Where the new contents of a file are written before they replace it. */
+    static Path temporary(Path path) {
+        return path.resolveSibling(path.getFileName() + ".tmp");
+    }
+
+    /* Replace a file with the first length bytes of an array. */
+    static void write(Path path, byte[] bytes, int length) throws IOException {
+        Path temporary = temporary(path);
+        try (OutputStream out = Files.newOutputStream(temporary)) {
+            out.write(bytes, 0, length);
+        }
+        replace(temporary, path);
+    }
+
+    /* Move a temporary file written in full over the file it replaces. */
+    static void replace(Path temporary, Path path) throws IOException {
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package backend;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Saves a board to a file after every change, without ever making the thread
+ * that changes the board wait for the disk. A change only takes a snapshot of
+ * the board, which copies just the piles it touched; the snapshot is encoded
+ * and written on a background thread. When changes come
+ * faster than the disk, snapshots that were not written yet are replaced by
+ * newer ones, so only the latest is ever written.
+ */
+public class Autosave implements BoardListener {
+    private final Path path;
+    private final ExecutorService writer;
+
+    /* The snapshot waiting to be written. A write is queued whenever this is set from null. */
+    private final AtomicReference<BoardSnapshot> pending;
+
+    private volatile IOException failure;
+
+    public Autosave(Path path) {
+        this.path = path;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pending = new AtomicReference<>();
+    }
+
+    /* Restore the board saved at a path, or deal a new one if there is none or the game was won. */
+    public static Board restore(Path path) {
+        return restore(path, Board::new);
+    }
+
+    /* Restore the board saved at a path, or start a new game if there is none or the game was won. */
+    public static Board restore(Path path, Supplier<Board> newGame) {
+        if (Files.isRegularFile(path)) {
+            try {
+                Board board = GameSnapshot.load(path).toBoard();
+                if (!board.isWon()) {
+                    return board;
+                }
+            } catch (IOException e) {
+                System.err.println("Could not restore the saved game: " + e.getMessage());
+            }
+        }
+        return newGame.get();
+    }
+
+    @Override
+    public void boardChanged(Board board, long version, int piles) {
+        this.save(board);
+    }
+
+    /* Take a snapshot of a board now and write it soon. Changes after close are not saved. */
+    public void save(Board board) {
+        if (this.pending.getAndSet(board.snapshot()) == null) {
+            try {
+                this.writer.execute(this::write);
+            } catch (RejectedExecutionException e) {
+                this.pending.set(null);
+            }
+        }
+    }
+
+    /* The last error writing a snapshot, or null. */
+    public IOException getFailure() {
+        return this.failure;
+    }
+
+    /* Write the pending snapshot, if any, and stop, waiting at most timeoutMillis. */
+    public void close(long timeoutMillis) throws InterruptedException {
+        this.writer.shutdown();
+        this.writer.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void write() {
+        BoardSnapshot snapshot = this.pending.getAndSet(null);
+        if (snapshot == null) {
+            return;
+        }
+        try {
+            Path parent = this.path.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            GameSnapshot.of(snapshot).save(this.path);
+            this.failure = null;
+        } catch (IOException e) {
+            this.failure = e;
+        }
+    }
+}
@@ -4,15 +4,27 @@ import backend.Card.Card;
 import backend.Card.CardType;
 import backend.Card.CardValue;
 
-import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class Board {
     public static final int TABLEAU_SIZE = 7;
     public static final int WASTE_SIZE = 3;
+    public static final int FOUNDATION_SIZE = CardType.values().length;
+    public static final int DECK_SIZE = 52;
+
+    /* Journal entry layout: the encoded move, then flags above it. */
+    static final int MOVE_MASK = 0xFFF;
+    private static final int FLIPPED = 1 << 12;
+    private static final int RECYCLED = 1 << 13;
+    private static final int RECYCLED_WASTE_SHIFT = 14;
+    private static final int DRAWN_SHIFT = 17;
+    private static final int INITIAL_JOURNAL_SIZE = 64;
+
+    private static final BoardListener[] NO_LISTENERS = new BoardListener[0];
 
     /* Stock cards are the face down cards in the upper left corner. */
-    private LinkedList<Card> stock;
+    private CardStock stock;
 
     /* Waste cards are the (up-to) three revealed cards from the stock. */
     private Card[] waste;
@@ -23,70 +35,351 @@ public class Board {
     /* The tableau is the main grid of cards that are still in play. */
     private CardColumn[] tableau;
 
+    private long dealNumber;
+
+    /*
+     * The Zobrist hash of the waste and foundation. The stock and every column
+     * keep the hash of their own cards.
+     */
+    private long hash;
+
+    /* The same, but hashing the foundation by its cards only, whatever slot they are in. */
+    private long canonicalHash;
+
+    /*
+     * The journal of moves played since the deal. Each entry is an encoded move
+     * (see Move) plus the flags needed to take it back. Entries from journalSize
+     * up to journalEnd are moves that were taken back and can be played again.
+     */
+    private int[] journal;
+    private int journalSize;
+    private int journalEnd;
+
+    /* Counts the changes made to this board. Listeners are not copied with it. */
+    private long version;
+    private BoardListener[] listeners = NO_LISTENERS;
+
+    /*
+     * The last snapshot taken, and the piles changed since, which the next
+     * snapshot copies. Snapshots read the journal array in place, so entries
+     * below sharedJournalEnd are never overwritten: the array is copied first.
+     */
+    private BoardSnapshot snapshot;
+    private int stalePiles = Pile.ALL;
+    private int sharedJournalEnd;
+
+    /* Deal a random board. */
     public Board() {
-        /* Initialize a shuffled deck of cards. */
-        LinkedList<Card> deck = new LinkedList<>();
-        for (CardType type : CardType.values()) {
-            for (CardValue value : CardValue.values()) {
-                deck.push(new Card(type, value));
-            }
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    /* Deal the board numbered dealNumber. The same number always deals the same board. */
+    public Board(long dealNumber) {
+        this(new CardStock(), new Card[WASTE_SIZE], new Card[FOUNDATION_SIZE], new CardColumn[TABLEAU_SIZE]);
+        for (int i = 0; i < this.tableau.length; i += 1) {
+            this.tableau[i] = new CardColumn();
         }
-        Collections.shuffle(deck);
+        this.deal(dealNumber);
+    }
+
+    /* Throw away the current game and deal the board numbered dealNumber in its place. */
+    public void deal(long dealNumber) {
+        byte[] deck = new byte[DECK_SIZE];
+        DealGenerator.shuffle(dealNumber, deck);
+        this.deal(dealNumber, deck);
+    }
+
+    /* Deal a shuffled deck of card ordinals, without allocating. */
+    void deal(long dealNumber, byte[] deck) {
+        this.dealNumber = dealNumber;
+        this.journalSize = 0;
+        this.journalEnd = 0;
 
-        /* Initialize an empty foundation. */
-        this.foundation = new Card[CardType.values().length];
+        /* Empty the waste and foundation. */
+        Arrays.fill(this.waste, null);
+        Arrays.fill(this.foundation, null);
+        this.hash = 0;
+        this.canonicalHash = 0;
 
         /* Deal out cards to the tableau from the deck. */
-        this.tableau = new CardColumn[TABLEAU_SIZE];
+        int next = 0;
         for (int i = 0; i < this.tableau.length; i += 1) {
-            LinkedList<Card> hiddenCards = new LinkedList<>();
-            LinkedList<Card> revealedCards = new LinkedList<>();
+            CardColumn column = this.tableau[i];
+            column.clear();
             for (int j = 0; j < i; j += 1) {
-                hiddenCards.push(deck.pop());
+                column.pushHidden(Card.of(deck[next++]));
             }
-            revealedCards.push(deck.pop());
-            tableau[i] = new CardColumn(hiddenCards, revealedCards);
+            column.push(Card.of(deck[next++]));
         }
 
-        /*
-         * Initialize the stock with the remaining cards from the deck, adding a
-         * null-terminator.
-         */
-        this.stock = deck;
-        this.stock.addLast(null);
+        /* Fill the stock with the remaining cards from the deck. */
+        this.stock.clear();
+        while (next < deck.length) {
+            this.stock.deal(Card.of(deck[next++]));
+        }
+        this.changed(Pile.ALL);
+    }
+
+    /* The number this board was dealt from, or 0 if it was decoded from a BoardState. */
+    public long getDealNumber() {
+        return this.dealNumber;
+    }
 
-        /* Initialize an empty waste. */
-        this.waste = new Card[WASTE_SIZE];
+    /* Restore the deal number of a board decoded from a BoardState. */
+    void setDealNumber(long dealNumber) {
+        this.dealNumber = dealNumber;
+        this.stalePiles = Pile.ALL;
+    }
+
+    /* The number of journal entries, counting moves that were taken back and can be played again. */
+    int getJournalEnd() {
+        return this.journalEnd;
+    }
+
+    /* The raw i-th journal entry, flags included, for i < getJournalEnd(). */
+    int getJournalEntry(int i) {
+        return this.journal[i];
     }
 
     /**
-     * Put the current waste cards at the end of the stock.
-     * Then:
-     * - if the next element of the stock is null, put the null-terminator at the
-     * end of the stock.
-     * - if the next element of the stock is not null, pop up to three elements from
-     * the stock onto the waste.
+     * Restore the journal of a board decoded from a BoardState, as read from
+     * getJournalEntry: entries [0, size) were played and entries [size, end) were
+     * taken back.
+     *
+     * @throws IllegalArgumentException if an entry does not hold a move.
      */
-    public void iterateStock() {
-        for (int i = 0; i < this.waste.length; i += 1) {
-            Card wasteCard = this.waste[i];
-            if (wasteCard != null) {
-                this.stock.addLast(wasteCard);
-            }
-            this.waste[i] = null;
+    void restoreJournal(int[] entries, int size, int end) {
+        if (size < 0 || size > end || end > entries.length) {
+            throw new IllegalArgumentException("Journal of " + size + " moves out of " + end);
         }
+        for (int i = 0; i < end; i += 1) {
+            Move.toCode(entries[i] & MOVE_MASK);
+        }
+        /* A decoded stock only tells whether it was recycled, the journal how many times. */
+        int recycles = 0;
+        for (int i = 0; i < size; i += 1) {
+            recycles += (entries[i] & RECYCLED) != 0 ? 1 : 0;
+        }
+        this.stock.setRecycles(Math.max(this.stock.getRecycles(), recycles));
+        this.journal = Arrays.copyOf(entries, Math.max(INITIAL_JOURNAL_SIZE, end));
+        this.journalSize = size;
+        this.journalEnd = end;
+        this.sharedJournalEnd = 0;
+        this.stalePiles = Pile.ALL;
+    }
 
-        if (this.stock.peekFirst() == null) {
-            this.stock.addLast(this.stock.removeFirst());
-        } else {
-            for (int i = 0; i < this.waste.length && this.stock.peekFirst() != null; i += 1) {
-                this.waste[i] = this.stock.removeFirst();
+    /*
+     * Start over from the position BoardState.decode just filled the piles with:
+     * no deal number and no journal.
+     */
+    void positionRestored() {
+        this.dealNumber = 0;
+        this.journalSize = 0;
+        this.journalEnd = 0;
+        this.changed(Pile.ALL);
+    }
+
+    /* Assemble a board from existing piles. Used to decode a BoardState. */
+    Board(CardStock stock, Card[] waste, Card[] foundation, CardColumn[] tableau) {
+        this.stock = stock;
+        this.waste = waste;
+        this.foundation = foundation;
+        this.tableau = tableau;
+        this.journal = new int[INITIAL_JOURNAL_SIZE];
+        this.hash = this.computeHash();
+        this.canonicalHash = this.computeCanonicalHash();
+    }
+
+    /* A board with no cards at all, to be filled by copyFrom. */
+    static Board empty() {
+        CardColumn[] tableau = new CardColumn[TABLEAU_SIZE];
+        for (int i = 0; i < tableau.length; i += 1) {
+            tableau[i] = new CardColumn();
+        }
+        return new Board(new CardStock(), new Card[WASTE_SIZE], new Card[FOUNDATION_SIZE], tableau);
+    }
+
+    /* Copy a board. The copy shares no mutable state with the original. */
+    public Board(Board other) {
+        this.stock = new CardStock(other.stock);
+        this.waste = other.waste.clone();
+        this.foundation = other.foundation.clone();
+        this.dealNumber = other.dealNumber;
+        this.hash = other.hash;
+        this.canonicalHash = other.canonicalHash;
+        this.version = other.version;
+        this.journal = other.journal.clone();
+        this.journalSize = other.journalSize;
+        this.journalEnd = other.journalEnd;
+        this.tableau = new CardColumn[other.tableau.length];
+        for (int i = 0; i < this.tableau.length; i += 1) {
+            this.tableau[i] = new CardColumn(other.tableau[i]);
+        }
+    }
+
+    /* Overwrite this board with the position of another, without allocating. */
+    void copyFrom(Board other) {
+        this.dealNumber = other.dealNumber;
+        this.hash = other.hash;
+        this.canonicalHash = other.canonicalHash;
+        if (this.journal.length < other.journalEnd || this.sharedJournalEnd > 0) {
+            this.journal = new int[other.journal.length];
+            this.sharedJournalEnd = 0;
+        }
+        System.arraycopy(other.journal, 0, this.journal, 0, other.journalEnd);
+        this.journalSize = other.journalSize;
+        this.journalEnd = other.journalEnd;
+        this.stock.copyFrom(other.stock);
+        System.arraycopy(other.waste, 0, this.waste, 0, this.waste.length);
+        System.arraycopy(other.foundation, 0, this.foundation, 0, this.foundation.length);
+        for (int i = 0; i < this.tableau.length; i += 1) {
+            this.tableau[i].copyFrom(other.tableau[i]);
+        }
+        this.changed(Pile.ALL);
+    }
+
+    /* The number of changes made to this board. It grows with every move, undo, redo and deal. */
+    public long getVersion() {
+        return this.version;
+    }
+
+    public void addListener(BoardListener listener) {
+        BoardListener[] listeners = Arrays.copyOf(this.listeners, this.listeners.length + 1);
+        listeners[listeners.length - 1] = listener;
+        this.listeners = listeners;
+    }
+
+    public void removeListener(BoardListener listener) {
+        for (int i = 0; i < this.listeners.length; i += 1) {
+            if (this.listeners[i] == listener) {
+                BoardListener[] listeners = new BoardListener[this.listeners.length - 1];
+                System.arraycopy(this.listeners, 0, listeners, 0, i);
+                System.arraycopy(this.listeners, i + 1, listeners, i, listeners.length - i);
+                this.listeners = listeners;
+                return;
             }
         }
     }
 
+    /**
+     * A 64-bit Zobrist hash of the position, maintained incrementally by every
+     * move. Equal positions have equal hashes, whatever moves led to them.
+     */
+    public long positionHash() {
+        long hash = this.hash ^ this.stock.hash();
+        for (int i = 0; i < this.tableau.length; i += 1) {
+            hash ^= Zobrist.column(i, this.tableau[i].hash());
+        }
+        return hash;
+    }
+
+    /**
+     * A 64-bit hash of the position up to the symmetries of the game: the order
+     * of the tableau columns and which foundation slot holds which suit. Two
+     * positions that only differ by those can be won by the same moves, renamed,
+     * so a search only needs to visit one of them. Costs one mix per column on
+     * top of positionHash.
+     */
+    public long canonicalHash() {
+        long hash = this.canonicalHash ^ this.stock.hash();
+        /* Summing the mixed column hashes makes the key independent of the column order. */
+        long columns = 0;
+        for (CardColumn column : this.tableau) {
+            columns += Zobrist.column(column.hash());
+        }
+        return hash ^ columns;
+    }
+
+    /* Recompute the position hash from scratch. Slow; meant to verify positionHash. */
+    public long computePositionHash() {
+        long hash = this.computeHash() ^ this.stock.computeHash();
+        for (int i = 0; i < this.tableau.length; i += 1) {
+            hash ^= Zobrist.column(i, this.tableau[i].computeHash());
+        }
+        return hash;
+    }
+
+    /* Recompute the canonical hash from scratch. Slow; meant to verify canonicalHash. */
+    public long computeCanonicalPositionHash() {
+        long columns = 0;
+        for (CardColumn column : this.tableau) {
+            columns += Zobrist.column(column.computeHash());
+        }
+        return this.computeCanonicalHash() ^ this.stock.computeHash() ^ columns;
+    }
+
+    /* The hash of the waste and foundation, from scratch. */
+    private long computeHash() {
+        long hash = 0;
+        for (int i = 0; i < this.waste.length; i += 1) {
+            hash ^= Zobrist.waste(i, this.waste[i]);
+        }
+        for (int i = 0; i < this.foundation.length; i += 1) {
+            hash ^= Zobrist.foundation(i, this.foundation[i]);
+        }
+        return hash;
+    }
+
+    /* The canonical hash of the waste and foundation, from scratch. */
+    private long computeCanonicalHash() {
+        long hash = 0;
+        for (int i = 0; i < this.waste.length; i += 1) {
+            hash ^= Zobrist.waste(i, this.waste[i]);
+        }
+        for (Card card : this.foundation) {
+            hash ^= Zobrist.foundation(card);
+        }
+        return hash;
+    }
+
+    void setWaste(int i, Card card) {
+        long change = Zobrist.waste(i, this.waste[i]) ^ Zobrist.waste(i, card);
+        this.hash ^= change;
+        this.canonicalHash ^= change;
+        this.waste[i] = card;
+    }
+
+    void setFoundation(int i, Card card) {
+        this.hash ^= Zobrist.foundation(i, this.foundation[i]) ^ Zobrist.foundation(i, card);
+        this.canonicalHash ^= Zobrist.foundation(this.foundation[i]) ^ Zobrist.foundation(card);
+        this.foundation[i] = card;
+    }
+
+    CardStock getStock() {
+        return this.stock;
+    }
+
+    CardColumn getColumn(int column) {
+        return this.tableau[column];
+    }
+
+    /**
+     * Put the current waste cards at the end of the stock.
+     * Then:
+     * - if no card of the stock can be drawn in this pass, recycle the stock.
+     * - otherwise, draw up to three cards from the stock onto the waste.
+     */
+    public void iterateStock() {
+        this.record(this.playStock());
+    }
+
     public boolean isStockEmpty() {
-        return this.stock.peekFirst() == null;
+        return this.stock.isEmpty();
+    }
+
+    /* The number of cards that can be drawn from the stock before it is recycled. */
+    public int getStockRemaining() {
+        return this.stock.getRemaining();
+    }
+
+    /* The game is won once every foundation pile holds a king. */
+    public boolean isWon() {
+        for (Card card : this.foundation) {
+            if (card == null || card.getValue() != CardValue.KING) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public Card getWasteCard(int i) {
@@ -101,10 +394,37 @@ public class Board {
         return this.tableau[column].getView();
     }
 
+    /**
+     * Fill dest with the cards of a tableau column, using null for hidden cards.
+     *
+     * @return the number of cards in the column.
+     */
+    public int getTableauCards(int column, Card[] dest) {
+        return this.tableau[column].getView(dest);
+    }
+
+    public int getTableauSize(int column) {
+        return this.tableau[column].size();
+    }
+
     public Card getTableauCard(int column, int row) {
         return this.tableau[column].getCard(row);
     }
 
+    public int getTableauHiddenCount(int column) {
+        return this.tableau[column].getHiddenCount();
+    }
+
+    /* Whether any tableau card is still face down. */
+    public boolean hasHiddenCards() {
+        for (CardColumn column : this.tableau) {
+            if (column.getHiddenCount() != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public boolean isMovableToFoundation(Card card, int foundation) {
         Card foundationCard = this.foundation[foundation];
         if (foundationCard == null) {
@@ -114,25 +434,12 @@ public class Board {
         }
     }
 
-    public void moveFromWasteToFoundation(int waste, int foundation) {
-        Card wasteCard = this.waste[waste];
-        if (wasteCard == null) {
-            return;
-        }
-        if (this.isMovableToFoundation(wasteCard, foundation)) {
-            this.foundation[foundation] = wasteCard;
-            this.waste[waste] = null;
-        }
+    public boolean moveFromWasteToFoundation(int waste, int foundation) {
+        return this.record(this.playWasteToFoundation(waste, foundation));
     }
 
-    public void moveFromTableauToFoundation(int column, int foundation) {
-        Card tableauCard = this.tableau[column].peek();
-        if (tableauCard == null) {
-            return;
-        }
-        if (this.isMovableToFoundation(tableauCard, foundation)) {
-            this.foundation[foundation] = this.tableau[column].pop();
-        }
+    public boolean moveFromTableauToFoundation(int column, int foundation) {
+        return this.record(this.playTableauToFoundation(column, foundation));
     }
 
     public boolean isMovableToTableau(Card card, int column) {
@@ -144,25 +451,342 @@ public class Board {
         }
     }
 
-    public void moveFromWasteToTableau(int waste, int column) {
+    public boolean moveFromWasteToTableau(int waste, int column) {
+        return this.record(this.playWasteToTableau(waste, column));
+    }
+
+    public boolean moveFromTableauToTableau(int from, int to) {
+        return this.record(this.playTableauToTableau(from, to));
+    }
+
+    /* Iterating the stock does something unless the stock and waste are both empty. */
+    public boolean isStockMovable() {
+        if (this.stock.size() != 0) {
+            return true;
+        }
+        for (Card card : this.waste) {
+            if (card != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Write every legal move into dest as encoded moves (see Move), in a fixed
+     * order: waste moves, tableau moves, then the stock. dest must have room for
+     * Move.MAX_MOVES moves.
+     *
+     * @return the number of moves written.
+     */
+    public int generateMoves(int[] dest) {
+        int count = 0;
+
+        for (int i = 0; i < this.waste.length; i += 1) {
+            Card card = this.waste[i];
+            if (card == null) {
+                continue;
+            }
+            for (int j = 0; j < this.foundation.length; j += 1) {
+                if (this.isMovableToFoundation(card, j)) {
+                    dest[count++] = Move.of(Move.WASTE_TO_FOUNDATION, i, j);
+                }
+            }
+            for (int j = 0; j < this.tableau.length; j += 1) {
+                if (this.isMovableToTableau(card, j)) {
+                    dest[count++] = Move.of(Move.WASTE_TO_TABLEAU, i, j);
+                }
+            }
+        }
+
+        for (int i = 0; i < this.tableau.length; i += 1) {
+            Card card = this.tableau[i].peek();
+            if (card == null) {
+                continue;
+            }
+            for (int j = 0; j < this.foundation.length; j += 1) {
+                if (this.isMovableToFoundation(card, j)) {
+                    dest[count++] = Move.of(Move.TABLEAU_TO_FOUNDATION, i, j);
+                }
+            }
+            for (int j = 0; j < this.tableau.length; j += 1) {
+                if (j != i && this.isMovableToTableau(card, j)) {
+                    dest[count++] = Move.of(Move.TABLEAU_TO_TABLEAU, i, j);
+                }
+            }
+        }
+
+        if (this.isStockMovable()) {
+            dest[count++] = Move.of(Move.STOCK, 0, 0);
+        }
+
+        return count;
+    }
+
+    /**
+     * Play an encoded move (see Move).
+     *
+     * @return false, leaving the board unchanged, if the move is not legal.
+     */
+    public boolean apply(int move) {
+        return this.record(this.play(move));
+    }
+
+    public boolean canUndo() {
+        return this.journalSize > 0;
+    }
+
+    public boolean canRedo() {
+        return this.journalSize < this.journalEnd;
+    }
+
+    /* The number of moves played since the deal, not counting undone moves. */
+    public int getMoveCount() {
+        return this.journalSize;
+    }
+
+    /* Whether the last move played turned over a hidden tableau card. */
+    boolean isLastMoveFlipping() {
+        return this.journalSize > 0 && (this.journal[this.journalSize - 1] & FLIPPED) != 0;
+    }
+
+    /* The i-th move played since the deal, encoded as in Move. */
+    public int getMove(int i) {
+        return this.journal[i] & MOVE_MASK;
+    }
+
+    /**
+     * Take back the last move.
+     *
+     * @return false if there is no move to take back.
+     */
+    public boolean undo() {
+        if (!this.canUndo()) {
+            return false;
+        }
+        this.journalSize -= 1;
+        int entry = this.journal[this.journalSize];
+        int move = entry & MOVE_MASK;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        boolean flipped = (entry & FLIPPED) != 0;
+        switch (Move.kind(move)) {
+            case Move.STOCK:
+                this.unplayStock(entry);
+                break;
+            case Move.WASTE_TO_FOUNDATION:
+                this.setWaste(from, this.foundation[to]);
+                this.setFoundation(to, previous(this.foundation[to]));
+                break;
+            case Move.WASTE_TO_TABLEAU:
+                this.setWaste(from, this.tableau[to].pop());
+                break;
+            case Move.TABLEAU_TO_FOUNDATION:
+                this.tableau[from].unpop(this.foundation[to], flipped);
+                this.setFoundation(to, previous(this.foundation[to]));
+                break;
+            case Move.TABLEAU_TO_TABLEAU:
+                this.tableau[from].unpop(this.tableau[to].pop(), flipped);
+                break;
+            default:
+                throw new IllegalStateException("Corrupt journal entry: " + entry);
+        }
+        this.changed(Pile.of(move));
+        return true;
+    }
+
+    /**
+     * Play the last move that was taken back again.
+     *
+     * @return false if there is no move to play again.
+     */
+    public boolean redo() {
+        if (!this.canRedo()) {
+            return false;
+        }
+        int move = this.journal[this.journalSize] & MOVE_MASK;
+        this.writeJournal(this.journalSize, this.play(move));
+        this.journalSize += 1;
+        this.changed(Pile.of(move));
+        return true;
+    }
+
+    /*
+     * Append a journal entry for a move that was just played, discarding the moves
+     * that could have been played again. A negative entry is an illegal move.
+     */
+    private boolean record(int entry) {
+        if (entry < 0) {
+            return false;
+        }
+        this.writeJournal(this.journalSize, entry);
+        this.journalSize += 1;
+        this.journalEnd = this.journalSize;
+        this.changed(Pile.of(entry & MOVE_MASK));
+        return true;
+    }
+
+    /*
+     * Write the i-th journal entry, growing the journal if it is full, and copying
+     * it first if a snapshot reads a different entry there.
+     */
+    private void writeJournal(int i, int entry) {
+        if (i < this.sharedJournalEnd && this.journal[i] != entry) {
+            this.journal = this.journal.clone();
+            this.sharedJournalEnd = 0;
+        }
+        if (i == this.journal.length) {
+            this.journal = Arrays.copyOf(this.journal, this.journal.length * 2);
+            this.sharedJournalEnd = 0;
+        }
+        this.journal[i] = entry;
+    }
+
+    /**
+     * An immutable snapshot of the position and journal, safe to hand to other
+     * threads. It shares every pile that did not change with the previous
+     * snapshot, so taking one after each move only copies the piles the move
+     * touched, and taking one again without a change returns the same snapshot.
+     *
+     * @return the snapshot, as of the current version.
+     */
+    public BoardSnapshot snapshot() {
+        if (this.stalePiles != 0) {
+            this.snapshot = new BoardSnapshot(this, this.snapshot, this.stalePiles);
+            this.stalePiles = 0;
+        }
+        return this.snapshot;
+    }
+
+    /* The journal array, for a snapshot to read in place. Its entries up to journalEnd are kept from now on. */
+    int[] shareJournal() {
+        this.sharedJournalEnd = Math.max(this.sharedJournalEnd, this.journalEnd);
+        return this.journal;
+    }
+
+    /* Count a change and tell the listeners which piles it touched. */
+    private void changed(int piles) {
+        this.version += 1;
+        this.stalePiles |= piles;
+        BoardListener[] listeners = this.listeners;
+        for (int i = 0; i < listeners.length; i += 1) {
+            listeners[i].boardChanged(this, this.version, piles);
+        }
+    }
+
+    /* Play an encoded move, returning its journal entry, or -1 if it is illegal. */
+    private int play(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        switch (Move.kind(move)) {
+            case Move.STOCK:
+                return this.playStock();
+            case Move.WASTE_TO_FOUNDATION:
+                return this.playWasteToFoundation(from, to);
+            case Move.WASTE_TO_TABLEAU:
+                return this.playWasteToTableau(from, to);
+            case Move.TABLEAU_TO_FOUNDATION:
+                return this.playTableauToFoundation(from, to);
+            case Move.TABLEAU_TO_TABLEAU:
+                return from == to ? -1 : this.playTableauToTableau(from, to);
+            default:
+                return -1;
+        }
+    }
+
+    private int playStock() {
+        if (!this.isStockMovable()) {
+            return -1;
+        }
+        int entry = Move.of(Move.STOCK, 0, 0);
+
+        for (int i = 0; i < this.waste.length; i += 1) {
+            Card wasteCard = this.waste[i];
+            if (wasteCard != null) {
+                this.stock.append(wasteCard);
+                entry |= 1 << (RECYCLED_WASTE_SHIFT + i);
+            }
+            this.setWaste(i, null);
+        }
+
+        if (this.stock.isEmpty()) {
+            this.stock.recycle();
+            entry |= RECYCLED;
+        } else {
+            int drawn = 0;
+            while (drawn < this.waste.length && !this.stock.isEmpty()) {
+                this.setWaste(drawn, this.stock.draw());
+                drawn += 1;
+            }
+            entry |= drawn << DRAWN_SHIFT;
+        }
+        return entry;
+    }
+
+    private void unplayStock(int entry) {
+        if ((entry & RECYCLED) != 0) {
+            this.stock.unrecycle();
+        } else {
+            for (int i = ((entry >>> DRAWN_SHIFT) & 0x3) - 1; i >= 0; i -= 1) {
+                this.stock.undraw(this.waste[i]);
+                this.setWaste(i, null);
+            }
+        }
+        for (int i = this.waste.length - 1; i >= 0; i -= 1) {
+            if ((entry & (1 << (RECYCLED_WASTE_SHIFT + i))) != 0) {
+                this.setWaste(i, this.stock.removeLast());
+            }
+        }
+    }
+
+    private int playWasteToFoundation(int waste, int foundation) {
         Card wasteCard = this.waste[waste];
-        if (wasteCard == null) {
-            return;
+        if (wasteCard == null || !this.isMovableToFoundation(wasteCard, foundation)) {
+            return -1;
         }
-        if (isMovableToTableau(wasteCard, column)) {
-            this.tableau[column].push(wasteCard);
-            this.waste[waste] = null;
+        this.setFoundation(foundation, wasteCard);
+        this.setWaste(waste, null);
+        return Move.of(Move.WASTE_TO_FOUNDATION, waste, foundation);
+    }
+
+    private int playTableauToFoundation(int column, int foundation) {
+        Card tableauCard = this.tableau[column].peek();
+        if (tableauCard == null || !this.isMovableToFoundation(tableauCard, foundation)) {
+            return -1;
         }
+        int entry = Move.of(Move.TABLEAU_TO_FOUNDATION, column, foundation) | this.flipFlag(column);
+        this.setFoundation(foundation, this.tableau[column].pop());
+        return entry;
     }
 
-    public void moveFromTableauToTableau(int from, int to) {
-        Card card = this.tableau[from].peek();
-        if (card == null) {
-            return;
+    private int playWasteToTableau(int waste, int column) {
+        Card wasteCard = this.waste[waste];
+        if (wasteCard == null || !this.isMovableToTableau(wasteCard, column)) {
+            return -1;
         }
-        if (isMovableToTableau(card, to)) {
-            this.tableau[to].push(this.tableau[from].pop());
+        this.tableau[column].push(wasteCard);
+        this.setWaste(waste, null);
+        return Move.of(Move.WASTE_TO_TABLEAU, waste, column);
+    }
+
+    private int playTableauToTableau(int from, int to) {
+        Card card = this.tableau[from].peek();
+        if (card == null || !this.isMovableToTableau(card, to)) {
+            return -1;
         }
+        int entry = Move.of(Move.TABLEAU_TO_TABLEAU, from, to) | this.flipFlag(from);
+        this.tableau[to].push(this.tableau[from].pop());
+        return entry;
     }
 
+    /* FLIPPED if popping the column would turn over a hidden card. */
+    private int flipFlag(int column) {
+        return this.tableau[column].isPopFlipping() ? FLIPPED : 0;
+    }
+
+    /* The card below a card on its foundation pile, or null for an ace. */
+    private static Card previous(Card card) {
+        CardValue value = card.getValue().prev();
+        return value == null ? null : Card.of(card.getType(), value);
+    }
 }
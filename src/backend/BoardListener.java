@@ -0,0 +1,12 @@
+package backend;
+
+/* Notified after every change to a Board. */
+public interface BoardListener {
+    /**
+     * Called on the thread that changed the board.
+     *
+     * @param version the version of the board after the change.
+     * @param piles the piles that changed, as a Pile mask.
+     */
+    void boardChanged(Board board, long version, int piles);
+}
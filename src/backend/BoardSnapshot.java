@@ -0,0 +1,236 @@
+package backend;
+
+import backend.Card.Card;
+import backend.Card.CardValue;
+
+/**
+ * An immutable position of a Board, with its journal, as taken by
+ * Board.snapshot. Every field is final and nothing it points to is ever
+ * written again, so a snapshot can be handed to any thread and read there
+ * while the board goes on changing.
+ *
+ * Successive snapshots of a board share what did not change between them:
+ * - a pile is copied only when a change touched it; every other pile is the
+ * same array as in the previous snapshot.
+ * - the journal is the board's own array, which the board copies before it
+ * overwrites an entry a snapshot can see.
+ * Taking a snapshot after a move thus copies one or two piles, however long
+ * the game.
+ */
+public final class BoardSnapshot {
+    private final long dealNumber;
+    private final long version;
+
+    /* The stock cards from the head, of which the first stockRemaining can be drawn. */
+    private final Card[] stock;
+    private final int stockRemaining;
+    private final int stockRecycles;
+
+    private final Card[] waste;
+    private final Card[] foundation;
+
+    /* Every column from the bottom, hidden cards included. */
+    private final Card[][] tableau;
+    private final int[] hiddenCounts;
+
+    /* Shared with the board: entries [0, journalEnd) never change. */
+    private final int[] journal;
+    private final int journalSize;
+    private final int journalEnd;
+
+    private final long positionHash;
+    private final long canonicalHash;
+
+    /*
+     * Snapshot a board, sharing with previous (if not null) every pile that is
+     * not in the piles mask.
+     */
+    BoardSnapshot(Board board, BoardSnapshot previous, int piles) {
+        boolean fresh = previous == null;
+        this.dealNumber = board.getDealNumber();
+        this.version = board.getVersion();
+
+        CardStock stock = board.getStock();
+        this.stock = fresh || (piles & Pile.STOCK) != 0 ? stockCards(stock) : previous.stock;
+        this.stockRemaining = stock.getRemaining();
+        this.stockRecycles = stock.getRecycles();
+
+        this.waste = fresh || (piles & Pile.WASTE) != 0 ? wasteCards(board) : previous.waste;
+        boolean foundationChanged = fresh;
+        for (int i = 0; i < Board.FOUNDATION_SIZE; i += 1) {
+            foundationChanged |= (piles & Pile.foundation(i)) != 0;
+        }
+        this.foundation = foundationChanged ? foundationCards(board) : previous.foundation;
+
+        this.tableau = new Card[Board.TABLEAU_SIZE][];
+        this.hiddenCounts = new int[Board.TABLEAU_SIZE];
+        for (int i = 0; i < Board.TABLEAU_SIZE; i += 1) {
+            CardColumn column = board.getColumn(i);
+            this.tableau[i] = fresh || (piles & Pile.column(i)) != 0 ? columnCards(column) : previous.tableau[i];
+            this.hiddenCounts[i] = column.getHiddenCount();
+        }
+
+        this.journal = board.shareJournal();
+        this.journalSize = board.getMoveCount();
+        this.journalEnd = board.getJournalEnd();
+        this.positionHash = board.positionHash();
+        this.canonicalHash = board.canonicalHash();
+    }
+
+    private static Card[] stockCards(CardStock stock) {
+        Card[] cards = new Card[stock.size()];
+        for (int i = 0; i < cards.length; i += 1) {
+            cards[i] = stock.getCard(i);
+        }
+        return cards;
+    }
+
+    private static Card[] wasteCards(Board board) {
+        Card[] cards = new Card[Board.WASTE_SIZE];
+        for (int i = 0; i < cards.length; i += 1) {
+            cards[i] = board.getWasteCard(i);
+        }
+        return cards;
+    }
+
+    private static Card[] foundationCards(Board board) {
+        Card[] cards = new Card[Board.FOUNDATION_SIZE];
+        for (int i = 0; i < cards.length; i += 1) {
+            cards[i] = board.getFoundationCard(i);
+        }
+        return cards;
+    }
+
+    private static Card[] columnCards(CardColumn column) {
+        Card[] cards = new Card[column.size()];
+        for (int i = 0; i < cards.length; i += 1) {
+            cards[i] = column.getCardAt(i);
+        }
+        return cards;
+    }
+
+    public long getDealNumber() {
+        return this.dealNumber;
+    }
+
+    /* The version of the board this snapshot was taken at. */
+    public long getVersion() {
+        return this.version;
+    }
+
+    public int getMoveCount() {
+        return this.journalSize;
+    }
+
+    /* The i-th move played since the deal, encoded as in Move. */
+    public int getMove(int i) {
+        if (i < 0 || i >= this.journalSize) {
+            throw new IndexOutOfBoundsException("Move " + i + " of " + this.journalSize);
+        }
+        return this.journal[i] & Board.MOVE_MASK;
+    }
+
+    public boolean canUndo() {
+        return this.journalSize > 0;
+    }
+
+    public boolean canRedo() {
+        return this.journalSize < this.journalEnd;
+    }
+
+    public int getStockSize() {
+        return this.stock.length;
+    }
+
+    public int getStockRemaining() {
+        return this.stockRemaining;
+    }
+
+    /* True if no card can be drawn until the stock is recycled, as Board.isStockEmpty. */
+    public boolean isStockEmpty() {
+        return this.stockRemaining == 0;
+    }
+
+    public Card getWasteCard(int i) {
+        return this.waste[i];
+    }
+
+    public Card getFoundationCard(int i) {
+        return this.foundation[i];
+    }
+
+    public int getTableauSize(int column) {
+        return this.tableau[column].length;
+    }
+
+    public int getTableauHiddenCount(int column) {
+        return this.hiddenCounts[column];
+    }
+
+    /* A tableau card, or null if it is hidden or there is no such card. */
+    public Card getTableauCard(int column, int row) {
+        Card[] cards = this.tableau[column];
+        if (row < this.hiddenCounts[column] || row >= cards.length) {
+            return null;
+        }
+        return cards[row];
+    }
+
+    /* The cards of a tableau column from the bottom, using null for hidden cards. */
+    public Card[] getTableauCards(int column) {
+        Card[] view = this.tableau[column].clone();
+        for (int i = 0; i < this.hiddenCounts[column]; i += 1) {
+            view[i] = null;
+        }
+        return view;
+    }
+
+    /* The game is won once every foundation pile holds a king. */
+    public boolean isWon() {
+        for (Card card : this.foundation) {
+            if (card == null || card.getValue() != CardValue.KING) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /* The board's positionHash when this snapshot was taken. */
+    public long positionHash() {
+        return this.positionHash;
+    }
+
+    /* The board's canonicalHash when this snapshot was taken. */
+    public long canonicalHash() {
+        return this.canonicalHash;
+    }
+
+    /* A new, independent Board in this position, with the same journal. May be called by any thread. */
+    public Board toBoard() {
+        CardStock stock = new CardStock();
+        for (int i = 0; i < this.stock.length; i += 1) {
+            if (i < this.stockRemaining) {
+                stock.deal(this.stock[i]);
+            } else {
+                stock.append(this.stock[i]);
+            }
+        }
+        stock.setRecycles(this.stockRecycles);
+        CardColumn[] tableau = new CardColumn[Board.TABLEAU_SIZE];
+        for (int i = 0; i < tableau.length; i += 1) {
+            tableau[i] = new CardColumn();
+            Card[] cards = this.tableau[i];
+            for (int j = 0; j < cards.length; j += 1) {
+                if (j < this.hiddenCounts[i]) {
+                    tableau[i].pushHidden(cards[j]);
+                } else {
+                    tableau[i].push(cards[j]);
+                }
+            }
+        }
+        Board board = new Board(stock, this.waste.clone(), this.foundation.clone(), tableau);
+        board.setDealNumber(this.dealNumber);
+        board.restoreJournal(this.journal, this.journalSize, this.journalEnd);
+        return board;
+    }
+}
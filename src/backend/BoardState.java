@@ -0,0 +1,228 @@
+package backend;
+
+import backend.Card.Card;
+import backend.Card.CardType;
+import backend.Card.CardValue;
+
+import java.util.Arrays;
+
+/**
+ * An immutable, compact encoding of a full Board position.
+ * Every card is stored as its one byte ordinal. The layout is:
+ * - stock: size, remaining with RECYCLED set once the stock has been recycled,
+ * then the stock cards from the head.
+ * - waste: one byte per slot, EMPTY for an empty slot.
+ * - foundation: four 4-bit ranks indexed by card type (0 for no card), followed
+ * by one byte holding the 2-bit card type shown in each foundation slot.
+ * - tableau: for each column, its hidden count, its revealed count, then its
+ * cards from the bottom.
+ * A position takes at most MAX_SIZE bytes.
+ */
+public final class BoardState {
+    public static final int MAX_SIZE = 2 + Board.WASTE_SIZE + 3 + 2 * Board.TABLEAU_SIZE + Board.DECK_SIZE;
+
+    private static final byte EMPTY = -1;
+    private static final int RECYCLED = 0x80;
+    private static final CardType[] TYPES = CardType.values();
+    private static final CardValue[] VALUES = CardValue.values();
+
+    private final byte[] bytes;
+
+    private BoardState(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    public static BoardState of(Board board) {
+        byte[] buffer = new byte[MAX_SIZE];
+        int length = encode(board, buffer, 0);
+        return new BoardState(Arrays.copyOf(buffer, length));
+    }
+
+    /* Wrap an encoding produced by encode. The array is copied. */
+    public static BoardState fromBytes(byte[] bytes, int offset, int length) {
+        return new BoardState(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
+    /**
+     * Write the encoding of a board into dest at offset without allocating.
+     * dest must have room for MAX_SIZE bytes.
+     *
+     * @return the number of bytes written.
+     */
+    public static int encode(Board board, byte[] dest, int offset) {
+        int i = offset;
+
+        CardStock stock = board.getStock();
+        dest[i++] = (byte) stock.size();
+        dest[i++] = (byte) (stock.getRemaining() | (stock.isRecycled() ? RECYCLED : 0));
+        for (int j = 0; j < stock.size(); j += 1) {
+            dest[i++] = (byte) stock.getCard(j).ordinal();
+        }
+
+        for (int j = 0; j < Board.WASTE_SIZE; j += 1) {
+            Card card = board.getWasteCard(j);
+            dest[i++] = card == null ? EMPTY : (byte) card.ordinal();
+        }
+
+        /* Ranks by type, and the type of each slot. Empty slots take the unused types. */
+        int ranks = 0;
+        int slots = 0;
+        int usedTypes = 0;
+        for (int j = 0; j < TYPES.length; j += 1) {
+            Card card = board.getFoundationCard(j);
+            if (card != null) {
+                int type = card.getType().ordinal();
+                ranks |= (card.getValue().ordinal() + 1) << (4 * type);
+                slots |= type << (2 * j);
+                usedTypes |= 1 << type;
+            }
+        }
+        for (int j = 0, type = 0; j < TYPES.length; j += 1) {
+            if (board.getFoundationCard(j) == null) {
+                while ((usedTypes & (1 << type)) != 0) {
+                    type += 1;
+                }
+                slots |= type << (2 * j);
+                usedTypes |= 1 << type;
+            }
+        }
+        dest[i++] = (byte) ranks;
+        dest[i++] = (byte) (ranks >>> 8);
+        dest[i++] = (byte) slots;
+
+        for (int j = 0; j < Board.TABLEAU_SIZE; j += 1) {
+            CardColumn column = board.getColumn(j);
+            dest[i++] = (byte) column.getHiddenCount();
+            dest[i++] = (byte) (column.size() - column.getHiddenCount());
+            for (int k = 0; k < column.size(); k += 1) {
+                dest[i++] = (byte) column.getCardAt(k).ordinal();
+            }
+        }
+
+        return i - offset;
+    }
+
+    /**
+     * Write into dest the offsets, within an encoding at offset, of the cards a
+     * player has never seen: the hidden tableau cards, and the stock cards not yet
+     * drawn in the first pass. Cards drawn before have been seen in the waste, and
+     * after the first recycle the whole stock has. Shuffling the bytes at these
+     * offsets gives another position that looks the same.
+     *
+     * @return the number of offsets written.
+     */
+    public static int hiddenOffsets(byte[] encoding, int offset, int[] dest) {
+        int count = 0;
+        int i = offset;
+        int stockSize = encoding[i];
+        int remaining = encoding[i + 1];
+        int unseen = (remaining & RECYCLED) != 0 ? 0 : remaining;
+        i += 2;
+        for (int j = 0; j < unseen; j += 1) {
+            dest[count++] = i + j;
+        }
+        i += stockSize + Board.WASTE_SIZE + 3;
+        for (int j = 0; j < Board.TABLEAU_SIZE; j += 1) {
+            int hidden = encoding[i++];
+            int revealed = encoding[i++];
+            for (int k = 0; k < hidden; k += 1) {
+                dest[count++] = i++;
+            }
+            i += revealed;
+        }
+        return count;
+    }
+
+    /* A 64-bit hash of an encoding, suitable as a transposition table key. */
+    public static long hash64(byte[] bytes, int offset, int length) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = offset; i < offset + length; i += 1) {
+            h = (h ^ (bytes[i] & 0xFF)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    public long hash64() {
+        return hash64(this.bytes, 0, this.bytes.length);
+    }
+
+    /* Decode this position into a new, independent Board. */
+    public Board toBoard() {
+        Board board = Board.empty();
+        decode(this.bytes, 0, board);
+        return board;
+    }
+
+    /**
+     * Overwrite a board with the position encoded at offset, without allocating.
+     * The board gets deal number 0 and an empty journal, as from toBoard.
+     */
+    static void decode(byte[] encoding, int offset, Board board) {
+        int i = offset;
+
+        CardStock stock = board.getStock();
+        stock.clear();
+        int stockSize = encoding[i++];
+        int remaining = encoding[i] & (RECYCLED - 1);
+        boolean recycled = (encoding[i++] & RECYCLED) != 0;
+        for (int j = 0; j < stockSize; j += 1) {
+            Card card = Card.of(encoding[i++]);
+            if (j < remaining) {
+                stock.deal(card);
+            } else {
+                stock.append(card);
+            }
+        }
+        stock.setRecycles(recycled ? 1 : 0);
+
+        for (int j = 0; j < Board.WASTE_SIZE; j += 1) {
+            byte ordinal = encoding[i++];
+            board.setWaste(j, ordinal == EMPTY ? null : Card.of(ordinal));
+        }
+
+        int ranks = (encoding[i++] & 0xFF) | (encoding[i++] & 0xFF) << 8;
+        int slots = encoding[i++] & 0xFF;
+        for (int j = 0; j < Board.FOUNDATION_SIZE; j += 1) {
+            int type = (slots >>> (2 * j)) & 0x3;
+            int rank = (ranks >>> (4 * type)) & 0xF;
+            board.setFoundation(j, rank == 0 ? null : Card.of(TYPES[type], VALUES[rank - 1]));
+        }
+
+        for (int j = 0; j < Board.TABLEAU_SIZE; j += 1) {
+            CardColumn column = board.getColumn(j);
+            column.clear();
+            int hidden = encoding[i++];
+            int revealed = encoding[i++];
+            for (int k = 0; k < hidden; k += 1) {
+                column.pushHidden(Card.of(encoding[i++]));
+            }
+            for (int k = 0; k < revealed; k += 1) {
+                column.push(Card.of(encoding[i++]));
+            }
+        }
+
+        board.positionRestored();
+    }
+
+    public int size() {
+        return this.bytes.length;
+    }
+
+    /* Copy the encoding into dest at offset. */
+    public void copyTo(byte[] dest, int offset) {
+        System.arraycopy(this.bytes, 0, dest, offset, this.bytes.length);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof BoardState && Arrays.equals(this.bytes, ((BoardState) o).bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(this.bytes);
+    }
+}
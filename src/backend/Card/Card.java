@@ -1,12 +1,44 @@
 package backend.Card;
 
 public class Card {
-    private CardType type;
-    private CardValue value;
+    private static final CardType[] TYPES = CardType.values();
+    private static final CardValue[] VALUES = CardValue.values();
 
-    public Card(CardType type, CardValue value) {
+    public static final int COUNT = TYPES.length * VALUES.length;
+
+    /* Every card that exists, indexed by ordinal. Cards are never allocated elsewhere. */
+    private static final Card[] CARDS = new Card[COUNT];
+
+    static {
+        for (CardType type : TYPES) {
+            for (CardValue value : VALUES) {
+                Card card = new Card(type, value);
+                CARDS[card.ordinal] = card;
+            }
+        }
+    }
+
+    private final CardType type;
+    private final CardValue value;
+    private final int ordinal;
+
+    /* Cards are immutable, so their name is built once. */
+    private final String name;
+
+    private Card(CardType type, CardValue value) {
         this.type = type;
         this.value = value;
+        this.ordinal = type.ordinal() * VALUES.length + value.ordinal();
+        this.name = value.toString() + type.toString();
+    }
+
+    public static Card of(CardType type, CardValue value) {
+        return CARDS[type.ordinal() * VALUES.length + value.ordinal()];
+    }
+
+    /* The card with the given ordinal, in the range [0, COUNT). */
+    public static Card of(int ordinal) {
+        return CARDS[ordinal];
     }
 
     public CardColor getColor() {
@@ -21,8 +53,13 @@ public class Card {
         return this.value;
     }
 
+    /* A dense index of this card, grouped by type and ordered by value. */
+    public int ordinal() {
+        return this.ordinal;
+    }
+
     @Override
     public String toString() {
-        return this.value.toString() + this.type.toString();
+        return this.name;
     }
 }
@@ -15,6 +15,8 @@ public enum CardValue {
     QUEEN("Q"),
     KING("K");
 
+    private static final CardValue[] VALUES = CardValue.values();
+
     private final String string;
 
     CardValue(String string) {
@@ -25,7 +27,7 @@ public enum CardValue {
         if (this == A) {
             return null;
         } else {
-            return CardValue.values()[this.ordinal() - 1];
+            return VALUES[this.ordinal() - 1];
         }
     }
 
@@ -33,7 +35,7 @@ public enum CardValue {
         if (this == KING) {
             return null;
         } else {
-            return CardValue.values()[this.ordinal() + 1];
+            return VALUES[this.ordinal() + 1];
         }
     }
 
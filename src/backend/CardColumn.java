@@ -2,52 +2,155 @@ package backend;
 
 import backend.Card.Card;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
 public class CardColumn {
-    private LinkedList<Card> hiddenCards;
-    private LinkedList<Card> revealedCards;
+    /*
+     * Cards are stored bottom to top. The first hiddenCount cards are face down,
+     * the rest are face up.
+     */
+    private Card[] cards;
+    private int hiddenCount;
+    private int size;
 
-    CardColumn(LinkedList<Card> hiddenCards, LinkedList<Card> revealedCards) {
-        this.hiddenCards = hiddenCards;
-        this.revealedCards = revealedCards;
+    /*
+     * The Zobrist hash of the cards. It does not depend on where the column is
+     * in the tableau, so equal columns hash the same wherever they are; Board
+     * mixes the index in where it matters.
+     */
+    private long hash;
+
+    CardColumn() {
+        this.cards = new Card[Board.DECK_SIZE];
+    }
+
+    CardColumn(CardColumn other) {
+        this.cards = other.cards.clone();
+        this.hiddenCount = other.hiddenCount;
+        this.size = other.size;
+        this.hash = other.hash;
+    }
+
+    void clear() {
+        Arrays.fill(this.cards, 0, this.size, null);
+        this.hiddenCount = 0;
+        this.size = 0;
+        this.hash = 0;
+    }
+
+    void copyFrom(CardColumn other) {
+        System.arraycopy(other.cards, 0, this.cards, 0, Math.max(this.size, other.size));
+        this.hiddenCount = other.hiddenCount;
+        this.size = other.size;
+        this.hash = other.hash;
+    }
+
+    long hash() {
+        return this.hash;
+    }
+
+    /* Recompute the hash from scratch, for verification. */
+    long computeHash() {
+        long hash = 0;
+        for (int i = 0; i < this.size; i += 1) {
+            hash ^= Zobrist.tableau(i, this.cards[i], i < this.hiddenCount);
+        }
+        return hash;
     }
 
     public Card getCard(int i) {
-        int j = this.hiddenCards.size() - i;
-        if (j < 0 || j >= this.revealedCards.size()) {
+        if (i < this.hiddenCount || i >= this.size) {
             return null;
         }
-        return this.revealedCards.get(j);
+        return this.cards[i];
+    }
+
+    /* The i-th card from the bottom, whether hidden or not. */
+    Card getCardAt(int i) {
+        return this.cards[i];
     }
 
     public Card[] getView() {
-        Card[] view = new Card[this.hiddenCards.size() + this.revealedCards.size()];
-        for (int i = 0; i < this.revealedCards.size(); i += 1) {
-            view[this.hiddenCards.size() + i] = this.revealedCards.get(i);
-        }
+        Card[] view = new Card[this.size];
+        this.getView(view);
         return view;
     }
 
+    /**
+     * Fill dest with the column from bottom to top, using null for hidden cards.
+     * dest must have room for at least size() cards.
+     *
+     * @return the number of cards written.
+     */
+    public int getView(Card[] dest) {
+        for (int i = 0; i < this.hiddenCount; i += 1) {
+            dest[i] = null;
+        }
+        System.arraycopy(this.cards, this.hiddenCount, dest, this.hiddenCount, this.size - this.hiddenCount);
+        return this.size;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getHiddenCount() {
+        return this.hiddenCount;
+    }
+
     public Card peek() {
-        if (this.revealedCards.size() == 0) {
+        if (this.size == this.hiddenCount) {
             return null;
         }
-        return this.revealedCards.getLast();
+        return this.cards[this.size - 1];
     }
 
     public Card pop() {
-        if (this.revealedCards.size() == 0) {
+        if (this.size == this.hiddenCount) {
             return null;
         }
-        Card result = this.revealedCards.removeLast();
-        if (this.revealedCards.size() == 0 && this.hiddenCards.size() != 0) {
-            this.revealedCards.push(this.hiddenCards.pop());
+        this.size -= 1;
+        Card result = this.cards[this.size];
+        this.cards[this.size] = null;
+        this.hash ^= Zobrist.tableau(this.size, result, false);
+        if (this.size == this.hiddenCount && this.hiddenCount != 0) {
+            this.hiddenCount -= 1;
+            this.flipHash(this.hiddenCount);
         }
         return result;
     }
 
+    /* True if popping the top card would turn over a hidden card. */
+    boolean isPopFlipping() {
+        return this.hiddenCount != 0 && this.size == this.hiddenCount + 1;
+    }
+
+    /* Take back a pop, turning the top card face down again if the pop flipped it. */
+    void unpop(Card card, boolean flipped) {
+        if (flipped) {
+            this.flipHash(this.hiddenCount);
+            this.hiddenCount += 1;
+        }
+        this.push(card);
+    }
+
     public void push(Card card) {
-        this.revealedCards.addLast(card);
+        this.cards[this.size] = card;
+        this.hash ^= Zobrist.tableau(this.size, card, false);
+        this.size += 1;
+    }
+
+    /* Deal a face down card onto the column. Only valid before any card is revealed. */
+    void pushHidden(Card card) {
+        this.cards[this.size] = card;
+        this.hash ^= Zobrist.tableau(this.size, card, true);
+        this.size += 1;
+        this.hiddenCount += 1;
+    }
+
+    /* Update the hash for the card at depth i being turned over. */
+    private void flipHash(int i) {
+        this.hash ^= Zobrist.tableau(i, this.cards[i], true)
+                ^ Zobrist.tableau(i, this.cards[i], false);
     }
 }
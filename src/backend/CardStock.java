@@ -0,0 +1,172 @@
+package backend;
+
+import backend.Card.Card;
+
+import java.util.Arrays;
+
+/**
+ * The stock as a fixed-capacity ring buffer.
+ * Cards are drawn from the head and recycled waste cards are appended at the
+ * tail. Only the first `remaining` cards from the head may be drawn before the
+ * stock has to be recycled; this replaces the null-terminator of the old list.
+ */
+public class CardStock {
+    private Card[] cards;
+    private int head;
+    private int size;
+    private int remaining;
+
+    /* How many times the stock was recycled. Once it was, every card in it has been seen. */
+    private int recycles;
+
+    /* The Zobrist hash of the stock: its first card, each consecutive pair, and remaining. */
+    private long hash;
+
+    CardStock() {
+        this.cards = new Card[Board.DECK_SIZE];
+        this.hash = Zobrist.stockRemaining(0);
+    }
+
+    CardStock(CardStock other) {
+        this.cards = other.cards.clone();
+        this.head = other.head;
+        this.size = other.size;
+        this.remaining = other.remaining;
+        this.recycles = other.recycles;
+        this.hash = other.hash;
+    }
+
+    void clear() {
+        Arrays.fill(this.cards, null);
+        this.head = 0;
+        this.size = 0;
+        this.remaining = 0;
+        this.recycles = 0;
+        this.hash = Zobrist.stockRemaining(0);
+    }
+
+    void copyFrom(CardStock other) {
+        System.arraycopy(other.cards, 0, this.cards, 0, this.cards.length);
+        this.head = other.head;
+        this.size = other.size;
+        this.remaining = other.remaining;
+        this.recycles = other.recycles;
+        this.hash = other.hash;
+    }
+
+    long hash() {
+        return this.hash;
+    }
+
+    /* Recompute the hash from scratch, for verification. */
+    long computeHash() {
+        long hash = Zobrist.stockRemaining(this.remaining);
+        for (int i = 0; i < this.size; i += 1) {
+            hash ^= i == 0 ? Zobrist.stockHead(this.getCard(i)) : Zobrist.stockPair(this.getCard(i - 1), this.getCard(i));
+        }
+        return hash;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public int getRemaining() {
+        return this.remaining;
+    }
+
+    /* True once the stock has been recycled, so that the player has seen all of its cards. */
+    public boolean isRecycled() {
+        return this.recycles > 0;
+    }
+
+    int getRecycles() {
+        return this.recycles;
+    }
+
+    void setRecycles(int recycles) {
+        this.recycles = recycles;
+    }
+
+    /* True if no card can be drawn until the stock is recycled. */
+    public boolean isEmpty() {
+        return this.remaining == 0;
+    }
+
+    /* The i-th card from the head of the stock. */
+    public Card getCard(int i) {
+        return this.cards[this.index(i)];
+    }
+
+    /* Append a card that can be drawn in the current pass. Used when dealing. */
+    void deal(Card card) {
+        this.append(card);
+        this.setRemaining(this.remaining + 1);
+    }
+
+    /* Append a card that can only be drawn after the next recycle. */
+    void append(Card card) {
+        this.hash ^= this.size == 0 ? Zobrist.stockHead(card) : Zobrist.stockPair(this.getCard(this.size - 1), card);
+        this.cards[this.index(this.size)] = card;
+        this.size += 1;
+    }
+
+    Card draw() {
+        Card card = this.cards[this.head];
+        this.hash ^= Zobrist.stockHead(card);
+        if (this.size > 1) {
+            Card next = this.getCard(1);
+            this.hash ^= Zobrist.stockPair(card, next) ^ Zobrist.stockHead(next);
+        }
+        this.cards[this.head] = null;
+        this.head = this.index(1);
+        this.size -= 1;
+        this.setRemaining(this.remaining - 1);
+        return card;
+    }
+
+    /* Make every card in the stock drawable again. */
+    void recycle() {
+        this.setRemaining(this.size);
+        this.recycles += 1;
+    }
+
+    /* Take back a recycle, which always happens when no card is drawable. */
+    void unrecycle() {
+        this.setRemaining(0);
+        this.recycles -= 1;
+    }
+
+    /* Take back a draw, putting the card back at the head. */
+    void undraw(Card card) {
+        if (this.size > 0) {
+            Card next = this.cards[this.head];
+            this.hash ^= Zobrist.stockHead(next) ^ Zobrist.stockPair(card, next);
+        }
+        this.hash ^= Zobrist.stockHead(card);
+        this.head = this.index(this.cards.length - 1);
+        this.cards[this.head] = card;
+        this.size += 1;
+        this.setRemaining(this.remaining + 1);
+    }
+
+    /* Take back an append. */
+    Card removeLast() {
+        this.size -= 1;
+        int i = this.index(this.size);
+        Card card = this.cards[i];
+        this.cards[i] = null;
+        this.hash ^= this.size == 0 ? Zobrist.stockHead(card) : Zobrist.stockPair(this.getCard(this.size - 1), card);
+        return card;
+    }
+
+    private void setRemaining(int remaining) {
+        this.hash ^= Zobrist.stockRemaining(this.remaining) ^ Zobrist.stockRemaining(remaining);
+        this.remaining = remaining;
+    }
+
+    private int index(int i) {
+        int j = this.head + i;
+        return j >= this.cards.length ? j - this.cards.length : j;
+    }
+}
@@ -0,0 +1,138 @@
+package backend;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.random.RandomGenerator;
+
+/**
+ * What the solver found out about a range of deals, read from a file written
+ * by DealCatalogWriter and mapped into memory. Looking up a deal reads its
+ * 4-byte record, and sampling a winnable deal of a given difficulty reads one
+ * entry of the index of winnable deals, so either touches a single page of
+ * the file however many deals it holds. Files larger than 2 GB are mapped in
+ * several segments.
+ *
+ * A record packs, from the lowest bit:
+ * - the verdict (2 bits), as its ordinal plus one, or 0 for a deal that was
+ * not surveyed.
+ * - the length of the winning line (12 bits), capped at MAX_MOVES.
+ * - the difficulty (8 bits), see difficultyOf.
+ */
+public class DealCatalog implements Closeable {
+    public static final int MAX_MOVES = (1 << 12) - 1;
+    public static final int MAX_DIFFICULTY = (1 << 8) - 1;
+
+    private static final Verdict[] VERDICTS = Verdict.values();
+
+    private final MappedFile file;
+    private final long firstDeal;
+    private final long count;
+
+    /* winnable[d] is the number of winnable deals easier than difficulty d, so d's start in the index. */
+    private final long[] winnable;
+
+    public DealCatalog(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            this.file = MappedFile.read(channel);
+            if (size < DealCatalogWriter.HEADER_SIZE || this.file.getInt(0) != DealCatalogWriter.MAGIC
+                    || this.file.getInt(4) != DealCatalogWriter.VERSION) {
+                throw new IOException("Not a deal catalog");
+            }
+            this.firstDeal = this.file.getLong(8);
+            this.count = this.file.getLong(16);
+            this.winnable = new long[MAX_DIFFICULTY + 2];
+            for (int i = 0; i < this.winnable.length; i += 1) {
+                this.winnable[i] = this.file.getLong(DealCatalogWriter.COUNTS_OFFSET + (long) i * Long.BYTES);
+            }
+            if (this.count < 0 || size != DealCatalogWriter.fileSize(this.count, this.getWinnableCount())) {
+                throw new IOException("Corrupt deal catalog");
+            }
+        }
+    }
+
+    /**
+     * The difficulty of a deal the solver decided after searching nodes
+     * positions: eight steps per doubling of the nodes, so that 0 is a deal won
+     * without a single wrong move and MAX_DIFFICULTY is over two billion nodes.
+     */
+    public static int difficultyOf(long nodes) {
+        if (nodes <= 0) {
+            return 0;
+        }
+        return (int) Math.min(MAX_DIFFICULTY, Math.round(8 * Math.log1p(nodes) / Math.log(2)));
+    }
+
+    /* Pack a record as described above. */
+    static int record(Verdict verdict, int moves, int difficulty) {
+        return (verdict.ordinal() + 1) | Math.min(moves, MAX_MOVES) << 2 | Math.min(difficulty, MAX_DIFFICULTY) << 14;
+    }
+
+    /* The verdict of a record, or null if its deal was not surveyed. */
+    public static Verdict verdict(int record) {
+        int verdict = record & 0x3;
+        return verdict == 0 ? null : VERDICTS[verdict - 1];
+    }
+
+    /* The length of the winning line of a record, at most MAX_MOVES. */
+    public static int moves(int record) {
+        return (record >>> 2) & MAX_MOVES;
+    }
+
+    public static int difficulty(int record) {
+        return (record >>> 14) & MAX_DIFFICULTY;
+    }
+
+    public long getFirstDeal() {
+        return this.firstDeal;
+    }
+
+    /* The number of deals the catalog covers, surveyed or not, from the first deal on. */
+    public long getCount() {
+        return this.count;
+    }
+
+    public long getWinnableCount() {
+        return this.winnable[MAX_DIFFICULTY + 1];
+    }
+
+    /* The number of winnable deals with a difficulty in [minDifficulty, maxDifficulty]. */
+    public long getWinnableCount(int minDifficulty, int maxDifficulty) {
+        int min = Math.max(0, minDifficulty);
+        int max = Math.min(MAX_DIFFICULTY, maxDifficulty);
+        return min > max ? 0 : this.winnable[max + 1] - this.winnable[min];
+    }
+
+    /* The record of a deal, or 0 if the catalog does not cover it. */
+    public int lookup(long deal) {
+        long i = deal - this.firstDeal;
+        if (i < 0 || i >= this.count) {
+            return 0;
+        }
+        return this.file.getInt(DealCatalogWriter.HEADER_SIZE + i * Integer.BYTES);
+    }
+
+    /**
+     * Pick a winnable deal with a difficulty in [minDifficulty, maxDifficulty],
+     * uniformly among those in the catalog.
+     *
+     * @return the deal number, or -1 if the catalog has no such deal.
+     */
+    public long sample(int minDifficulty, int maxDifficulty, RandomGenerator random) {
+        long candidates = this.getWinnableCount(minDifficulty, maxDifficulty);
+        if (candidates == 0) {
+            return -1;
+        }
+        long i = this.winnable[Math.max(0, minDifficulty)] + random.nextLong(candidates);
+        long offset = this.file.getInt(DealCatalogWriter.indexOffset(this.count) + i * Integer.BYTES) & 0xFFFFFFFFL;
+        return this.firstDeal + offset;
+    }
+
+    /* Unmapping is left to the garbage collector, as the JDK offers no other way. */
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,157 @@
+package backend;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Builds a deal catalog, read by DealCatalog, from the output of surveys
+ * (lines of seed,verdict,nodes,micros,moves, see SolverFarm.survey).
+ * The file holds, all numbers big-endian:
+ * - a header of HEADER_SIZE bytes: MAGIC, VERSION, the first deal and the
+ * number of deals covered, then for every difficulty d up to
+ * MAX_DIFFICULTY + 1 the number of winnable deals easier than d.
+ * - one 4-byte record per deal covered, in deal order, 0 for deals that were
+ * not surveyed.
+ * - the index of winnable deals: the offset from the first deal of every
+ * winnable deal as an unsigned 4-byte number, easiest first.
+ * The surveys are read twice, once to size the file and count the winnable
+ * deals of every difficulty, and once to fill it in through a memory map, so
+ * building a catalog of any size takes little memory.
+ */
+public final class DealCatalogWriter {
+    static final int MAGIC = 0x534F4C44;
+    static final int VERSION = 1;
+    static final int COUNTS_OFFSET = 24;
+    static final int HEADER_SIZE = 4096;
+
+    /* Index entries are 4-byte offsets, which limits how many deals a catalog covers. */
+    public static final long MAX_DEALS = 1L << 32;
+
+    private DealCatalogWriter() {
+    }
+
+    /* Where the index of a catalog of count deals starts. */
+    static long indexOffset(long count) {
+        return HEADER_SIZE + count * Integer.BYTES;
+    }
+
+    static long fileSize(long count, long winnable) {
+        return indexOffset(count) + winnable * Integer.BYTES;
+    }
+
+    /**
+     * Write a catalog of the deals in surveys to output, replacing it atomically.
+     * Deals may come in any order, but each at most once.
+     *
+     * @return the number of deals surveyed.
+     */
+    public static long write(List<Path> surveys, Path output) throws IOException {
+        /* First pass: the range of deals, and the winnable ones by difficulty. */
+        long first = Long.MAX_VALUE;
+        long last = Long.MIN_VALUE;
+        long surveyed = 0;
+        long[] winnable = new long[DealCatalog.MAX_DIFFICULTY + 2];
+        Line line = new Line();
+        for (Path survey : surveys) {
+            try (BufferedReader reader = Files.newBufferedReader(survey)) {
+                while (line.read(reader, survey)) {
+                    first = Math.min(first, line.seed);
+                    last = Math.max(last, line.seed);
+                    surveyed += 1;
+                    if (line.verdict == Verdict.SOLVED) {
+                        winnable[line.difficulty + 1] += 1;
+                    }
+                }
+            }
+        }
+        if (surveyed == 0) {
+            first = 0;
+            last = -1;
+        }
+        long count = last - first + 1;
+        if (count > MAX_DEALS || count < 0) {
+            throw new IOException("A catalog covers at most " + MAX_DEALS + " consecutive deals");
+        }
+        for (int i = 1; i < winnable.length; i += 1) {
+            winnable[i] += winnable[i - 1];
+        }
+        long winnableCount = winnable[winnable.length - 1];
+
+        /* Second pass: fill in the records and the index through a map of the whole file. */
+        Path temporary = AtomicFiles.temporary(output);
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedFile file = new MappedFile(channel, FileChannel.MapMode.READ_WRITE, fileSize(count, winnableCount));
+
+            file.putInt(0, MAGIC);
+            file.putInt(4, VERSION);
+            file.putLong(8, first);
+            file.putLong(16, count);
+            for (int i = 0; i < winnable.length; i += 1) {
+                file.putLong(COUNTS_OFFSET + (long) i * Long.BYTES, winnable[i]);
+            }
+
+            long index = indexOffset(count);
+            long[] next = winnable.clone();
+            for (Path survey : surveys) {
+                try (BufferedReader reader = Files.newBufferedReader(survey)) {
+                    while (line.read(reader, survey)) {
+                        long offset = line.seed - first;
+                        long position = HEADER_SIZE + offset * Integer.BYTES;
+                        if (file.getInt(position) != 0) {
+                            throw new IOException("Deal " + line.seed + " is surveyed twice");
+                        }
+                        file.putInt(position, DealCatalog.record(line.verdict, line.moves, line.difficulty));
+                        if (line.verdict == Verdict.SOLVED) {
+                            file.putInt(index + next[line.difficulty] * Integer.BYTES, (int) offset);
+                            next[line.difficulty] += 1;
+                        }
+                    }
+                }
+            }
+            file.force();
+        }
+        AtomicFiles.replace(temporary, output);
+        return surveyed;
+    }
+
+    /* One line of a survey, parsed in place. */
+    private static class Line {
+        private long number;
+        private long seed;
+        private Verdict verdict;
+        private int difficulty;
+        private int moves;
+
+        /* Read the next line of a survey, skipping its header, or return false at its end. */
+        boolean read(BufferedReader reader, Path survey) throws IOException {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                this.number += 1;
+                if (text.isEmpty() || text.startsWith("seed,")) {
+                    continue;
+                }
+                String[] fields = text.split(",");
+                try {
+                    if (fields.length != 5) {
+                        throw new IllegalArgumentException("expected 5 fields");
+                    }
+                    this.seed = Long.parseLong(fields[0]);
+                    this.verdict = Verdict.valueOf(fields[1]);
+                    this.difficulty = DealCatalog.difficultyOf(Long.parseLong(fields[2]));
+                    this.moves = Integer.parseInt(fields[4]);
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(survey + ":" + this.number + ": not a survey line: " + text, e);
+                }
+                return true;
+            }
+            this.number = 0;
+            return false;
+        }
+    }
+}
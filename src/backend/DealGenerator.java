@@ -0,0 +1,92 @@
+package backend;
+
+/**
+ * Produces numbered deals. Deal n is the deck of card ordinals shuffled by a
+ * Fisher-Yates shuffle driven by a SplitMix64 generator seeded with n, so every
+ * deal can be reproduced from its number alone. A generator walks consecutive
+ * deal numbers and reuses its buffers, so producing a deal allocates nothing.
+ */
+public class DealGenerator {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final byte[] deck;
+    private final Board board;
+    private long next;
+
+    public DealGenerator(long firstDealNumber) {
+        this.deck = new byte[Board.DECK_SIZE];
+        this.board = Board.empty();
+        this.next = firstDealNumber;
+    }
+
+    /* The number of the deal the next call will produce. */
+    public long peekDealNumber() {
+        return this.next;
+    }
+
+    /**
+     * Write the next shuffled deck into dest, which must hold DECK_SIZE bytes.
+     * Cards are dealt from the front: tableau columns first, then the stock.
+     *
+     * @return the deal number.
+     */
+    public long next(byte[] dest) {
+        long dealNumber = this.next;
+        this.next += 1;
+        shuffle(dealNumber, dest);
+        return dealNumber;
+    }
+
+    /**
+     * Deal the next deal onto an existing board, replacing its game.
+     *
+     * @return the deal number.
+     */
+    public long next(Board board) {
+        long dealNumber = this.next(this.deck);
+        board.deal(dealNumber, this.deck);
+        return dealNumber;
+    }
+
+    /**
+     * Write the BoardState encoding of the next deal into dest at offset. dest must
+     * have room for BoardState.MAX_SIZE bytes.
+     *
+     * @return the number of bytes written.
+     */
+    public int nextEncoded(byte[] dest, int offset) {
+        this.next(this.board);
+        return BoardState.encode(this.board, dest, offset);
+    }
+
+    /* Fill deck with the card ordinals of deal dealNumber. */
+    public static void shuffle(long dealNumber, byte[] deck) {
+        for (int i = 0; i < deck.length; i += 1) {
+            deck[i] = (byte) i;
+        }
+        /* Every 64-bit output supplies two 32-bit draws. */
+        long state = dealNumber;
+        long random = 0;
+        for (int i = deck.length - 1; i > 0; i -= 1) {
+            long bits;
+            if ((i & 1) == 1) {
+                state += GOLDEN_GAMMA;
+                random = mix(state);
+                bits = random >>> 32;
+            } else {
+                bits = random & 0xFFFFFFFFL;
+            }
+            int j = (int) ((bits * (i + 1)) >>> 32);
+            byte card = deck[i];
+            deck[i] = deck[j];
+            deck[j] = card;
+        }
+    }
+
+    /* The SplitMix64 output function. */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
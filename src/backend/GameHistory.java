@@ -0,0 +1,132 @@
+package backend;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An append-only log of finished games. The file starts with a header (MAGIC,
+ * VERSION) followed by one RECORD_SIZE record per game:
+ * - the deal number (8 bytes).
+ * - when the game finished, in milliseconds since the epoch (8 bytes).
+ * - the active play time, in milliseconds (8 bytes).
+ * - the number of moves (4 bytes).
+ * - flags (4 bytes): WON if the game was won.
+ * All numbers are big-endian. Records are never rewritten, so game n sits at a
+ * known offset, and a record torn by a crash is dropped when the log is opened.
+ */
+public class GameHistory implements Closeable {
+    static final int MAGIC = 0x534F4C48;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    static final int RECORD_SIZE = 32;
+
+    private static final int WON = 1;
+
+    /* How many records are read at a time when catching up. */
+    private static final int READ_RECORDS = 2048;
+
+    private final FileChannel channel;
+    private final ByteBuffer record;
+    private long gameCount;
+
+    /* Open or create a log. */
+    public GameHistory(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        this.record = ByteBuffer.allocate(RECORD_SIZE);
+        try {
+            this.open();
+        } catch (IOException e) {
+            this.channel.close();
+            throw e;
+        }
+    }
+
+    /* Write the header of a new log, or check that of an existing one and drop a torn last record. */
+    private void open() throws IOException {
+        long size = this.channel.size();
+        if (size == 0) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION);
+            header.flip();
+            write(this.channel, header, 0);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        this.channel.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a game history file");
+        }
+        this.gameCount = (size - HEADER_SIZE) / RECORD_SIZE;
+        if (size != offset(this.gameCount)) {
+            this.channel.truncate(offset(this.gameCount));
+        }
+    }
+
+    public long getGameCount() {
+        return this.gameCount;
+    }
+
+    /* Append a finished game. */
+    public void append(long dealNumber, boolean won, int moves, long millis, long finishedMillis) throws IOException {
+        this.record.clear();
+        this.record.putLong(dealNumber).putLong(finishedMillis).putLong(millis).putInt(moves).putInt(won ? WON : 0);
+        this.record.flip();
+        write(this.channel, this.record, offset(this.gameCount));
+        this.gameCount += 1;
+    }
+
+    /**
+     * Add the games logged after the ones stats already counts, so that stats
+     * counts every logged game. Only the missing records are read.
+     *
+     * @throws IOException if stats counts more games than were logged.
+     */
+    public void catchUp(PlayerStats stats) throws IOException {
+        long next = stats.getGames();
+        if (next > this.gameCount) {
+            throw new IOException("Stats count " + next + " games, but only " + this.gameCount + " were logged");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(READ_RECORDS * RECORD_SIZE);
+        while (next < this.gameCount) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), (this.gameCount - next) * RECORD_SIZE));
+            long position = offset(next);
+            while (buffer.hasRemaining()) {
+                if (this.channel.read(buffer, position + buffer.position()) < 0) {
+                    throw new IOException("Game history ends early");
+                }
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                int start = buffer.position();
+                long millis = buffer.getLong(start + 2 * Long.BYTES);
+                int moves = buffer.getInt(start + 3 * Long.BYTES);
+                int flags = buffer.getInt(start + 3 * Long.BYTES + Integer.BYTES);
+                stats.add((flags & WON) != 0, moves, millis);
+                buffer.position(start + RECORD_SIZE);
+                next += 1;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    private static long offset(long game) {
+        return HEADER_SIZE + game * RECORD_SIZE;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
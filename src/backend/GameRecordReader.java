@@ -0,0 +1,133 @@
+package backend;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads games written by GameRecordWriter, mapping the record file and its
+ * index into memory. Any game is found through the index, and any position in
+ * it is rebuilt from the closest checkpoint before it, so reading costs at most
+ * one checkpoint interval of moves however long the file or the game is.
+ * Files larger than 2 GB are mapped in several segments.
+ */
+public class GameRecordReader implements Closeable {
+    private final MappedFile records;
+    private final MappedFile index;
+    private final long recordsSize;
+    private final long gameCount;
+    private final int checkpointInterval;
+
+    public GameRecordReader(Path records, Path index) throws IOException {
+        try (FileChannel recordChannel = FileChannel.open(records, StandardOpenOption.READ);
+                FileChannel indexChannel = FileChannel.open(index, StandardOpenOption.READ)) {
+            this.recordsSize = recordChannel.size();
+            this.records = MappedFile.read(recordChannel);
+            this.index = MappedFile.read(indexChannel);
+            long indexSize = indexChannel.size();
+            if (this.recordsSize < GameRecordWriter.HEADER_SIZE || this.records.getInt(0) != GameRecordWriter.MAGIC
+                    || this.records.getInt(4) != GameRecordWriter.VERSION) {
+                throw new IOException("Not a game record file");
+            }
+            if (indexSize < GameRecordWriter.INDEX_HEADER_SIZE
+                    || this.index.getInt(0) != GameRecordWriter.INDEX_MAGIC
+                    || this.index.getInt(4) != GameRecordWriter.VERSION) {
+                throw new IOException("Not a game record index");
+            }
+            this.checkpointInterval = this.records.getInt(8);
+            this.gameCount = (indexSize - GameRecordWriter.INDEX_HEADER_SIZE) / Long.BYTES;
+        }
+    }
+
+    public long getGameCount() {
+        return this.gameCount;
+    }
+
+    public int getCheckpointInterval() {
+        return this.checkpointInterval;
+    }
+
+    public long getDealNumber(long game) {
+        return this.records.getLong(this.offset(game));
+    }
+
+    public int getMoveCount(long game) {
+        return this.records.getInt(this.offset(game) + Long.BYTES);
+    }
+
+    /* The i-th move of a game, encoded as in Move. */
+    public int getMove(long game, int i) {
+        long offset = this.offset(game);
+        this.checkMove(offset, i);
+        return Move.fromCode(this.records.get(offset + GameRecordWriter.GAME_HEADER_SIZE + i) & 0xFF);
+    }
+
+    /* Write the first moves of a game into dest, which must be large enough. */
+    public void getMoves(long game, int[] dest, int count) {
+        long offset = this.offset(game);
+        this.checkMove(offset, count - 1);
+        long start = offset + GameRecordWriter.GAME_HEADER_SIZE;
+        for (int i = 0; i < count; i += 1) {
+            dest[i] = Move.fromCode(this.records.get(start + i) & 0xFF);
+        }
+    }
+
+    /**
+     * Rebuild the position of a game after its first moves moves. The board starts
+     * from the closest checkpoint, so its journal only holds the moves played
+     * after it and they cannot be taken back further.
+     *
+     * @return a new board.
+     */
+    public Board replay(long game, int moves) {
+        long offset = this.offset(game);
+        int count = this.records.getInt(offset + Long.BYTES);
+        if (moves < 0 || moves > count) {
+            throw new IndexOutOfBoundsException("Move " + moves + " of a game of " + count + " moves");
+        }
+        long movesStart = offset + GameRecordWriter.GAME_HEADER_SIZE;
+
+        int checkpoint = moves / this.checkpointInterval;
+        Board board;
+        if (checkpoint == 0) {
+            board = new Board(this.records.getLong(offset));
+        } else {
+            byte[] state = new byte[BoardState.MAX_SIZE];
+            long at = movesStart + count + (long) (checkpoint - 1) * BoardState.MAX_SIZE;
+            for (int i = 0; i < state.length; i += 1) {
+                state[i] = this.records.get(at + i);
+            }
+            board = BoardState.fromBytes(state, 0, state.length).toBoard();
+            board.setDealNumber(this.records.getLong(offset));
+        }
+        for (int i = checkpoint * this.checkpointInterval; i < moves; i += 1) {
+            board.apply(Move.fromCode(this.records.get(movesStart + i) & 0xFF));
+        }
+        return board;
+    }
+
+    /* Unmapping is left to the garbage collector, as the JDK offers no other way. */
+    @Override
+    public void close() {
+    }
+
+    private long offset(long game) {
+        if (game < 0 || game >= this.gameCount) {
+            throw new IndexOutOfBoundsException("Game " + game + " of " + this.gameCount);
+        }
+        long offset = this.index.getLong(GameRecordWriter.INDEX_HEADER_SIZE + game * Long.BYTES);
+        if (offset < GameRecordWriter.HEADER_SIZE || offset + GameRecordWriter.GAME_HEADER_SIZE > this.recordsSize) {
+            throw new IllegalStateException("Corrupt index entry for game " + game);
+        }
+        return offset;
+    }
+
+    private void checkMove(long offset, int i) {
+        int count = this.records.getInt(offset + Long.BYTES);
+        if (i >= count) {
+            throw new IndexOutOfBoundsException("Move " + i + " of a game of " + count + " moves");
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package backend;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends played games to a record file and its index.
+ * The record file starts with a header (MAGIC, VERSION, the checkpoint
+ * interval), followed by one record per game:
+ * - the deal number (8 bytes) and the number of moves (4 bytes).
+ * - one byte per move, its Move code.
+ * - a checkpoint after every interval moves: the BoardState of the position,
+ * padded to BoardState.MAX_SIZE bytes so that checkpoint k sits at a known
+ * offset.
+ * The index file starts with its own header (INDEX_MAGIC, VERSION) followed by
+ * the 8-byte offset of every game in the record file, so that game n is found
+ * without reading the games before it. All numbers are big-endian.
+ * Writes go through a buffer and files are only ever appended to, so a file can
+ * be extended by opening a new writer on it.
+ */
+public class GameRecordWriter implements Closeable {
+    static final int MAGIC = 0x534F4C52;
+    static final int INDEX_MAGIC = 0x534F4C49;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    static final int INDEX_HEADER_SIZE = 8;
+    static final int GAME_HEADER_SIZE = 12;
+
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 128;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel records;
+    private final FileChannel index;
+    private final ByteBuffer recordBuffer;
+    private final ByteBuffer indexBuffer;
+    private final int checkpointInterval;
+
+    /* The offset in the record file of the next game. */
+    private long offset;
+    private long gameCount;
+
+    /* Replays every game to take its checkpoints. */
+    private final Board board;
+    private final byte[] state;
+
+    public GameRecordWriter(Path records, Path index) throws IOException {
+        this(records, index, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    /* Open or create a record file and its index. Existing files must use the same interval. */
+    public GameRecordWriter(Path records, Path index, int checkpointInterval) throws IOException {
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+        }
+        this.checkpointInterval = checkpointInterval;
+        this.recordBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.indexBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.board = Board.empty();
+        this.state = new byte[BoardState.MAX_SIZE];
+
+        this.records = FileChannel.open(records, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            this.index = FileChannel.open(index, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            this.records.close();
+            throw e;
+        }
+        try {
+            this.open();
+        } catch (IOException e) {
+            this.records.close();
+            this.index.close();
+            throw e;
+        }
+    }
+
+    /* Write the headers of new files, or check those of existing ones and append after them. */
+    private void open() throws IOException {
+        if (this.records.size() == 0) {
+            /* The new header would land on the offsets of games that are gone. */
+            if (this.index.size() != 0) {
+                throw new IOException("Game record index without its record file");
+            }
+            this.recordBuffer.putInt(MAGIC).putInt(VERSION).putInt(this.checkpointInterval);
+            this.indexBuffer.putInt(INDEX_MAGIC).putInt(VERSION);
+            this.offset = HEADER_SIZE;
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        this.records.read(header, 0);
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a game record file");
+        }
+        int interval = header.getInt();
+        if (interval != this.checkpointInterval) {
+            throw new IOException("Record file uses checkpoint interval " + interval);
+        }
+        long indexSize = this.index.size();
+        if (indexSize < INDEX_HEADER_SIZE || (indexSize - INDEX_HEADER_SIZE) % Long.BYTES != 0) {
+            throw new IOException("Corrupt game record index");
+        }
+        this.offset = this.records.size();
+        this.gameCount = (indexSize - INDEX_HEADER_SIZE) / Long.BYTES;
+        this.records.position(this.offset);
+        this.index.position(indexSize);
+    }
+
+    public long getGameCount() {
+        return this.gameCount;
+    }
+
+    /**
+     * Append the moves played on a board since its deal. The board must have been
+     * dealt from its deal number.
+     *
+     * @return the number of the game in the record file.
+     */
+    public long append(Board board) throws IOException {
+        int count = board.getMoveCount();
+        this.ensure(this.indexBuffer, Long.BYTES, this.index);
+        this.indexBuffer.putLong(this.offset);
+
+        this.ensure(this.recordBuffer, GAME_HEADER_SIZE, this.records);
+        this.recordBuffer.putLong(board.getDealNumber()).putInt(count);
+        for (int i = 0; i < count; i += 1) {
+            this.ensure(this.recordBuffer, 1, this.records);
+            this.recordBuffer.put((byte) Move.toCode(board.getMove(i)));
+        }
+
+        /* Replay the game on a spare board to encode the checkpoints. */
+        this.board.deal(board.getDealNumber());
+        for (int i = 0; i < count; i += 1) {
+            if (!this.board.apply(board.getMove(i))) {
+                throw new IllegalArgumentException("Move " + i + " does not replay from deal " + board.getDealNumber());
+            }
+            if ((i + 1) % this.checkpointInterval == 0) {
+                int length = BoardState.encode(this.board, this.state, 0);
+                this.ensure(this.recordBuffer, BoardState.MAX_SIZE, this.records);
+                this.recordBuffer.put(this.state, 0, length);
+                for (int j = length; j < BoardState.MAX_SIZE; j += 1) {
+                    this.recordBuffer.put((byte) 0);
+                }
+            }
+        }
+
+        this.offset += gameSize(count, this.checkpointInterval);
+        this.gameCount += 1;
+        return this.gameCount - 1;
+    }
+
+    /* Write everything buffered so far to the files. */
+    public void flush() throws IOException {
+        drain(this.recordBuffer, this.records);
+        drain(this.indexBuffer, this.index);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            this.records.close();
+            this.index.close();
+        }
+    }
+
+    /* The number of bytes a game of count moves takes in the record file. */
+    static long gameSize(int count, int checkpointInterval) {
+        return GAME_HEADER_SIZE + count + (long) (count / checkpointInterval) * BoardState.MAX_SIZE;
+    }
+
+    private void ensure(ByteBuffer buffer, int bytes, FileChannel channel) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(buffer, channel);
+        }
+    }
+
+    private static void drain(ByteBuffer buffer, FileChannel channel) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
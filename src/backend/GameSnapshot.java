@@ -0,0 +1,138 @@
+package backend;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * An immutable, versioned binary snapshot of a whole game: the position and
+ * the journal, so that moves can still be taken back and played again after a
+ * restore. The layout, big-endian, is:
+ * - header: MAGIC, VERSION.
+ * - the deal number (8 bytes).
+ * - the number of moves played and of journal entries, then every entry (4
+ * bytes each), moves that were taken back included.
+ * - the length of the position, then the position as encoded by BoardState.
+ * - a CRC32 of everything before it.
+ * A snapshot is encoded when it is taken, so that writing it out touches
+ * nothing but its own bytes.
+ */
+public final class GameSnapshot {
+    static final int MAGIC = 0x534F4C53;
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 8;
+
+    private final byte[] bytes;
+
+    private GameSnapshot(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    /* Take a snapshot of a board. Must be called by the thread that owns the board. */
+    public static GameSnapshot of(Board board) {
+        int end = board.getJournalEnd();
+        int maxSize = HEADER_SIZE + Long.BYTES + (2 + end) * Integer.BYTES + 1 + BoardState.MAX_SIZE + Integer.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(maxSize);
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(board.getDealNumber());
+        buffer.putInt(board.getMoveCount()).putInt(end);
+        for (int i = 0; i < end; i += 1) {
+            buffer.putInt(board.getJournalEntry(i));
+        }
+        int length = BoardState.encode(board, buffer.array(), buffer.position() + 1);
+        buffer.put((byte) length);
+        buffer.position(buffer.position() + length);
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        return new GameSnapshot(Arrays.copyOf(buffer.array(), buffer.position()));
+    }
+
+    /* Encode a snapshot of a board. May be called by any thread. */
+    public static GameSnapshot of(BoardSnapshot snapshot) {
+        return of(snapshot.toBoard());
+    }
+
+    /**
+     * Check and wrap an encoded snapshot. The array is copied.
+     *
+     * @throws IllegalArgumentException if the bytes are not a snapshot of this version.
+     */
+    public static GameSnapshot fromBytes(byte[] bytes) {
+        GameSnapshot snapshot = new GameSnapshot(bytes.clone());
+        snapshot.toBoard();
+        return snapshot;
+    }
+
+    /* Read a snapshot saved by save. */
+    public static GameSnapshot load(Path path) throws IOException {
+        try {
+            return fromBytes(Files.readAllBytes(path));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Not a saved game: " + path, e);
+        }
+    }
+
+    /**
+     * Write this snapshot to a file, atomically: it is written next to the file
+     * first and then moved over it, so that the file always holds either the old
+     * or the new snapshot in full.
+     */
+    public void save(Path path) throws IOException {
+        AtomicFiles.write(path, this.bytes, this.bytes.length);
+    }
+
+    /**
+     * Decode this snapshot into a new, independent Board.
+     *
+     * @throws IllegalArgumentException if the snapshot is corrupt.
+     */
+    public Board toBoard() {
+        ByteBuffer buffer = ByteBuffer.wrap(this.bytes);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IllegalArgumentException("Not a game snapshot of version " + VERSION);
+            }
+            int checked = this.bytes.length - Integer.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(this.bytes, 0, checked);
+            if (buffer.getInt(checked) != (int) crc.getValue()) {
+                throw new IllegalArgumentException("Corrupt game snapshot");
+            }
+
+            long dealNumber = buffer.getLong();
+            int size = buffer.getInt();
+            int end = buffer.getInt();
+            if (end < 0 || end > buffer.remaining() / Integer.BYTES) {
+                throw new IllegalArgumentException("Corrupt game snapshot journal");
+            }
+            int[] journal = new int[end];
+            buffer.asIntBuffer().get(journal);
+            buffer.position(buffer.position() + end * Integer.BYTES);
+
+            int length = buffer.get() & 0xFF;
+            if (length > checked - buffer.position()) {
+                throw new IllegalArgumentException("Corrupt game snapshot position");
+            }
+            Board board = BoardState.fromBytes(this.bytes, buffer.position(), length).toBoard();
+            board.setDealNumber(dealNumber);
+            board.restoreJournal(journal, size, end);
+            return board;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated game snapshot", e);
+        }
+    }
+
+    public int size() {
+        return this.bytes.length;
+    }
+
+    public byte[] toBytes() {
+        return this.bytes.clone();
+    }
+}
@@ -0,0 +1,150 @@
+package backend;
+
+import backend.Card.Card;
+
+/**
+ * Plays the most promising move that leads to a position not seen before in
+ * the game, in this order:
+ * - foundation moves.
+ * - tableau moves that reveal a hidden card or free one for the foundation.
+ * - tableau moves that dig towards a card the foundation takes next.
+ * - tableau moves from a column with hidden cards onto one without.
+ * - waste cards onto the tableau.
+ * - the stock.
+ * Cards are never put on a column that holds a card the foundation takes next,
+ * so they only ever flow away from the cards that make progress, and other
+ * tableau moves, which only shuffle cards around, are never played.
+ * Gives up once every move leads back to a position already seen.
+ */
+public class GreedyPolicy implements Policy {
+    private static final int FOUNDATION = 0;
+    private static final int REVEAL = 1;
+    private static final int UNBURY = 2;
+    private static final int DIG = 3;
+    private static final int WASTE = 4;
+    private static final int STOCK = 5;
+    private static final int PRIORITIES = 6;
+    private static final int NEVER = PRIORITIES;
+
+    private static final long SEEN_BYTES = 1L << 20;
+
+    private final TranspositionTable seen;
+
+    /* Columns holding a revealed card that a foundation takes next, as a bit mask. */
+    private int buried;
+
+    public GreedyPolicy() {
+        this(SEEN_BYTES);
+    }
+
+    /* A policy that remembers the positions of a game in a table of at most seenBytes. */
+    GreedyPolicy(long seenBytes) {
+        this.seen = new TranspositionTable(seenBytes);
+    }
+
+    @Override
+    public void start(Board board) {
+        this.seen.newSearch();
+        this.seen.add(board.canonicalHash());
+    }
+
+    @Override
+    public int choose(Board board, int[] moves, int count) {
+        this.findBuried(board);
+        for (int priority = 0; priority < PRIORITIES; priority += 1) {
+            for (int i = 0; i < count; i += 1) {
+                int move = moves[i];
+                if (this.priority(board, move) != priority) {
+                    continue;
+                }
+                board.apply(move);
+                boolean fresh = this.seen.add(board.canonicalHash());
+                board.undo();
+                if (fresh) {
+                    return move;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Sort the first count moves of a position from the most to the least
+     * promising, in the order this policy considers them. Moves of the same
+     * priority keep their order.
+     */
+    void rank(Board board, int[] moves, int count) {
+        this.findBuried(board);
+        int[] priorities = new int[count];
+        for (int i = 0; i < count; i += 1) {
+            priorities[i] = this.priority(board, moves[i]);
+        }
+        for (int i = 1; i < count; i += 1) {
+            int move = moves[i];
+            int priority = priorities[i];
+            int j = i;
+            for (; j > 0 && priorities[j - 1] > priority; j -= 1) {
+                moves[j] = moves[j - 1];
+                priorities[j] = priorities[j - 1];
+            }
+            moves[j] = move;
+            priorities[j] = priority;
+        }
+    }
+
+    private void findBuried(Board board) {
+        this.buried = 0;
+        for (int i = 0; i < Board.TABLEAU_SIZE; i += 1) {
+            for (int j = board.getTableauHiddenCount(i); j < board.getTableauSize(i); j += 1) {
+                if (this.isFoundationMovable(board, board.getTableauCard(i, j))) {
+                    this.buried |= 1 << i;
+                    break;
+                }
+            }
+        }
+    }
+
+    private int priority(Board board, int move) {
+        int to = Move.to(move);
+        switch (Move.kind(move)) {
+            case Move.WASTE_TO_FOUNDATION:
+            case Move.TABLEAU_TO_FOUNDATION:
+                return FOUNDATION;
+            case Move.WASTE_TO_TABLEAU:
+                return this.isBuried(to) ? NEVER : WASTE;
+            case Move.TABLEAU_TO_TABLEAU:
+                int from = Move.from(move);
+                int size = board.getTableauSize(from);
+                int hidden = board.getTableauHiddenCount(from);
+                if (hidden > 0 && hidden == size - 1) {
+                    return REVEAL;
+                }
+                Card below = size - hidden > 1 ? board.getTableauCard(from, size - 2) : null;
+                if (below != null && this.isFoundationMovable(board, below)) {
+                    return REVEAL;
+                }
+                if (this.isBuried(to)) {
+                    return NEVER;
+                }
+                if (this.isBuried(from)) {
+                    return UNBURY;
+                }
+                return hidden > 0 && board.getTableauHiddenCount(to) == 0 ? DIG : NEVER;
+            default:
+                return STOCK;
+        }
+    }
+
+    private boolean isBuried(int column) {
+        return (this.buried & (1 << column)) != 0;
+    }
+
+    private boolean isFoundationMovable(Board board, Card card) {
+        for (int i = 0; i < Board.FOUNDATION_SIZE; i += 1) {
+            if (board.isMovableToFoundation(card, i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
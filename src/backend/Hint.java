@@ -0,0 +1,32 @@
+package backend;
+
+public class Hint {
+    private final long position;
+    private final int move;
+    private final Verdict verdict;
+
+    public Hint(long position, int move, Verdict verdict) {
+        this.position = position;
+        this.move = move;
+        this.verdict = verdict;
+    }
+
+    /* The Board.positionHash of the position the hint is for. */
+    public long getPosition() {
+        return this.position;
+    }
+
+    /* The suggested move (see Move), or -1 if there is no legal move. */
+    public int getMove() {
+        return this.move;
+    }
+
+    /*
+     * SOLVED if the move starts a winning line, UNSOLVABLE if the position cannot
+     * be won whatever is played, and UNKNOWN if the move is only the most
+     * promising one found so far.
+     */
+    public Verdict getVerdict() {
+        return this.verdict;
+    }
+}
@@ -0,0 +1,162 @@
+package backend;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Searches the position on the table for the best move in the background, so
+ * that asking for a hint never waits for a search:
+ * - every change of the board cancels the search of the previous position and
+ * starts one of the new position on a background thread.
+ * - a search first publishes the move the solver would try first, then solves
+ * the position with growing node budgets until it finds a winning line or
+ * proves there is none.
+ * - every position along a winning line is cached with its next move, so a
+ * player who follows the hints gets every later one at once.
+ * getHint only reads the cache and what the current search has published.
+ */
+public class HintEngine {
+    /* The node budgets a position is solved with, one after the other. */
+    private static final long[] BUDGETS = { 20_000, 200_000, 2_000_000 };
+    private static final long MAX_NANOS = 10_000_000_000L;
+    private static final long SOLVER_BYTES = 32L << 20;
+    private static final long CACHE_BYTES = 1L << 20;
+
+    private final ExecutorService searcher;
+    private final Solver solver;
+    private final int[] moves;
+
+    /* Counts the positions searched. A search stops as soon as a newer one is started. */
+    private final AtomicLong generation;
+
+    /* The best hint of the current search so far. */
+    private volatile Hint current;
+
+    /*
+     * Decided hints by position, read by any thread and written by the search.
+     * Hints far from a win, and losing positions, which took the most search,
+     * are kept over those near a win.
+     */
+    private final TranspositionTable cache;
+
+    public HintEngine() {
+        this.searcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hints");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        this.solver = new Solver(BUDGETS[BUDGETS.length - 1], MAX_NANOS / 1_000_000, SOLVER_BYTES);
+        this.moves = new int[Move.MAX_MOVES];
+        this.generation = new AtomicLong();
+        this.cache = new TranspositionTable(CACHE_BYTES);
+    }
+
+    /*
+     * Start searching a board's position, cancelling the previous search. Must be
+     * called by the thread that owns the board; the search runs on a board
+     * rebuilt from a snapshot, on the search thread.
+     */
+    public void search(Board board) {
+        long generation = this.generation.incrementAndGet();
+        BoardSnapshot snapshot = board.snapshot();
+        this.searcher.execute(() -> this.run(snapshot.toBoard(), generation));
+    }
+
+    /**
+     * The best hint known for a board's position right now, without waiting.
+     *
+     * @return the hint, or null if the position has not been searched yet.
+     */
+    public Hint getHint(Board board) {
+        long position = board.positionHash();
+        Hint hint = this.cached(position);
+        if (hint == null) {
+            Hint current = this.current;
+            hint = current != null && current.getPosition() == position ? current : null;
+        }
+        if (hint == null || hint.getMove() < 0) {
+            return hint;
+        }
+
+        /* Different positions can share a hash, so only offer legal moves. */
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = board.generateMoves(moves);
+        for (int i = 0; i < count; i += 1) {
+            if (moves[i] == hint.getMove()) {
+                return hint;
+            }
+        }
+        return null;
+    }
+
+    public void shutdown() {
+        this.generation.incrementAndGet();
+        this.searcher.shutdownNow();
+    }
+
+    private void run(Board board, long generation) {
+        BooleanSupplier cancelled = () -> this.generation.get() != generation;
+        if (cancelled.getAsBoolean()) {
+            return;
+        }
+        long position = board.positionHash();
+        Hint cached = this.cached(position);
+        if (cached != null) {
+            this.current = cached;
+            return;
+        }
+        if (board.isWon()) {
+            this.current = new Hint(position, -1, Verdict.SOLVED);
+            return;
+        }
+
+        int count = this.solver.rootMoves(board, this.moves);
+        int best = count > 0 ? this.moves[0] : -1;
+        this.current = new Hint(position, best, count > 0 ? Verdict.UNKNOWN : Verdict.UNSOLVABLE);
+
+        for (long budget : BUDGETS) {
+            SolverResult result = this.solver.solve(board, null, 0, 0, budget, System.nanoTime() + MAX_NANOS, cancelled);
+            if (cancelled.getAsBoolean()) {
+                return;
+            }
+            if (result.getVerdict() == Verdict.SOLVED) {
+                this.remember(board, result.getMoves());
+                return;
+            }
+            if (result.getVerdict() == Verdict.UNSOLVABLE) {
+                Hint hint = new Hint(position, best, Verdict.UNSOLVABLE);
+                this.cache(hint, TranspositionTable.MAX_DEPTH);
+                this.current = hint;
+                return;
+            }
+        }
+    }
+
+    /* Cache every position along a winning line from a board. The board is played forward. */
+    private void remember(Board board, int[] line) {
+        for (int i = 0; i < line.length; i += 1) {
+            Hint hint = new Hint(board.positionHash(), line[i], Verdict.SOLVED);
+            this.cache(hint, line.length - i);
+            if (i == 0) {
+                this.current = hint;
+            }
+            board.apply(line[i]);
+        }
+    }
+
+    private Hint cached(long position) {
+        long entry = this.cache.probe(position);
+        if (entry == 0) {
+            return null;
+        }
+        return new Hint(position, TranspositionTable.move(entry), TranspositionTable.verdict(entry));
+    }
+
+    /* Cache a hint, as worth depth moves of search. */
+    private void cache(Hint hint, int depth) {
+        this.cache.store(hint.getPosition(), depth, hint.getVerdict(), hint.getMove());
+    }
+}
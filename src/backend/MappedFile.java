@@ -0,0 +1,102 @@
+package backend;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A file mapped into memory in segments of at most SEGMENT_SIZE bytes, read
+ * and written at long positions, so that files larger than the 2 GB a single
+ * buffer can map are handled the same as small ones. Numbers are big-endian,
+ * and those that straddle two segments are read and written a byte at a time.
+ * The mapping outlives the channel it was made from, until the garbage
+ * collector drops it, as the JDK offers no other way to unmap a file.
+ */
+final class MappedFile {
+    static final int SEGMENT_SHIFT = 30;
+    static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final MappedByteBuffer[] segments;
+    private final long size;
+
+    /* Map the first size bytes of a file, growing it to that size if it is writable and shorter. */
+    MappedFile(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        this.size = size;
+        this.segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < this.segments.length; i += 1) {
+            long start = (long) i << SEGMENT_SHIFT;
+            this.segments[i] = channel.map(mode, start, Math.min(SEGMENT_SIZE, size - start));
+        }
+    }
+
+    /* Map the whole of a file for reading. */
+    static MappedFile read(FileChannel channel) throws IOException {
+        return new MappedFile(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+    }
+
+    long size() {
+        return this.size;
+    }
+
+    byte get(long position) {
+        return this.segments[(int) (position >>> SEGMENT_SHIFT)].get((int) (position & SEGMENT_MASK));
+    }
+
+    void put(long position, byte value) {
+        this.segments[(int) (position >>> SEGMENT_SHIFT)].put((int) (position & SEGMENT_MASK), value);
+    }
+
+    int getInt(long position) {
+        int inSegment = (int) (position & SEGMENT_MASK);
+        if (inSegment <= SEGMENT_SIZE - Integer.BYTES) {
+            return this.segments[(int) (position >>> SEGMENT_SHIFT)].getInt(inSegment);
+        }
+        int value = 0;
+        for (int i = 0; i < Integer.BYTES; i += 1) {
+            value = value << 8 | (this.get(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    long getLong(long position) {
+        int inSegment = (int) (position & SEGMENT_MASK);
+        if (inSegment <= SEGMENT_SIZE - Long.BYTES) {
+            return this.segments[(int) (position >>> SEGMENT_SHIFT)].getLong(inSegment);
+        }
+        long value = 0;
+        for (int i = 0; i < Long.BYTES; i += 1) {
+            value = value << 8 | (this.get(position + i) & 0xFF);
+        }
+        return value;
+    }
+
+    void putInt(long position, int value) {
+        int inSegment = (int) (position & SEGMENT_MASK);
+        if (inSegment <= SEGMENT_SIZE - Integer.BYTES) {
+            this.segments[(int) (position >>> SEGMENT_SHIFT)].putInt(inSegment, value);
+            return;
+        }
+        for (int i = 0; i < Integer.BYTES; i += 1) {
+            this.put(position + i, (byte) (value >>> (Integer.SIZE - 8 * (i + 1))));
+        }
+    }
+
+    void putLong(long position, long value) {
+        int inSegment = (int) (position & SEGMENT_MASK);
+        if (inSegment <= SEGMENT_SIZE - Long.BYTES) {
+            this.segments[(int) (position >>> SEGMENT_SHIFT)].putLong(inSegment, value);
+            return;
+        }
+        for (int i = 0; i < Long.BYTES; i += 1) {
+            this.put(position + i, (byte) (value >>> (Long.SIZE - 8 * (i + 1))));
+        }
+    }
+
+    /* Write the changes made through a writable mapping to the file. */
+    void force() {
+        for (MappedByteBuffer segment : this.segments) {
+            segment.force();
+        }
+    }
+}
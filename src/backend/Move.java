@@ -0,0 +1,116 @@
+package backend;
+
+import java.util.Arrays;
+
+/**
+ * Moves encoded as ints, so that move lists can be kept in primitive arrays.
+ * A move packs its kind, its source index and its target index:
+ * kind << 8 | from << 4 | to.
+ */
+public final class Move {
+    public static final int STOCK = 0;
+    public static final int WASTE_TO_FOUNDATION = 1;
+    public static final int WASTE_TO_TABLEAU = 2;
+    public static final int TABLEAU_TO_FOUNDATION = 3;
+    public static final int TABLEAU_TO_TABLEAU = 4;
+
+    /* An upper bound on the number of moves that can be legal at once. */
+    public static final int MAX_MOVES = Board.WASTE_SIZE * (Board.FOUNDATION_SIZE + Board.TABLEAU_SIZE)
+            + Board.TABLEAU_SIZE * (Board.FOUNDATION_SIZE + Board.TABLEAU_SIZE - 1) + 1;
+
+    /*
+     * Every possible move numbered densely, so that a move fits in one byte: MOVES
+     * maps a code to its move, and CODES maps a move back to its code, or -1.
+     */
+    private static final int[] MOVES = new int[MAX_MOVES];
+    private static final byte[] CODES = new byte[1 << 12];
+
+    static {
+        Arrays.fill(CODES, (byte) -1);
+        int code = 0;
+        code = addCodes(code, STOCK, 1, 1);
+        code = addCodes(code, WASTE_TO_FOUNDATION, Board.WASTE_SIZE, Board.FOUNDATION_SIZE);
+        code = addCodes(code, WASTE_TO_TABLEAU, Board.WASTE_SIZE, Board.TABLEAU_SIZE);
+        code = addCodes(code, TABLEAU_TO_FOUNDATION, Board.TABLEAU_SIZE, Board.FOUNDATION_SIZE);
+        addCodes(code, TABLEAU_TO_TABLEAU, Board.TABLEAU_SIZE, Board.TABLEAU_SIZE);
+    }
+
+    private Move() {
+    }
+
+    private static int addCodes(int code, int kind, int sources, int targets) {
+        for (int from = 0; from < sources; from += 1) {
+            for (int to = 0; to < targets; to += 1) {
+                if (kind == TABLEAU_TO_TABLEAU && from == to) {
+                    continue;
+                }
+                MOVES[code] = of(kind, from, to);
+                CODES[of(kind, from, to)] = (byte) code;
+                code += 1;
+            }
+        }
+        return code;
+    }
+
+    /* The one byte code of a move, in the range [0, MAX_MOVES). */
+    public static int toCode(int move) {
+        int code = move >= 0 && move < CODES.length ? CODES[move] : -1;
+        if (code < 0) {
+            throw new IllegalArgumentException("Not a move: " + move);
+        }
+        return code;
+    }
+
+    /* The move with a given one byte code. */
+    public static int fromCode(int code) {
+        if (code < 0 || code >= MAX_MOVES) {
+            throw new IllegalArgumentException("Not a move code: " + code);
+        }
+        return MOVES[code];
+    }
+
+    public static int of(int kind, int from, int to) {
+        return kind << 8 | from << 4 | to;
+    }
+
+    public static int kind(int move) {
+        return move >>> 8;
+    }
+
+    public static int from(int move) {
+        return (move >>> 4) & 0xF;
+    }
+
+    public static int to(int move) {
+        return move & 0xF;
+    }
+
+    public static boolean isToFoundation(int move) {
+        int kind = kind(move);
+        return kind == WASTE_TO_FOUNDATION || kind == TABLEAU_TO_FOUNDATION;
+    }
+
+    public static boolean isToTableau(int move) {
+        int kind = kind(move);
+        return kind == WASTE_TO_TABLEAU || kind == TABLEAU_TO_TABLEAU;
+    }
+
+    public static String toString(int move) {
+        int from = from(move);
+        int to = to(move);
+        switch (kind(move)) {
+            case STOCK:
+                return "stock";
+            case WASTE_TO_FOUNDATION:
+                return "waste " + from + " -> foundation " + to;
+            case WASTE_TO_TABLEAU:
+                return "waste " + from + " -> tableau " + to;
+            case TABLEAU_TO_FOUNDATION:
+                return "tableau " + from + " -> foundation " + to;
+            case TABLEAU_TO_TABLEAU:
+                return "tableau " + from + " -> tableau " + to;
+            default:
+                return "unknown " + move;
+        }
+    }
+}
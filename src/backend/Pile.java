@@ -0,0 +1,47 @@
+package backend;
+
+/**
+ * Piles encoded as bits, so that a set of piles fits in an int mask:
+ * the stock, the waste, one bit per foundation slot, then one bit per
+ * tableau column.
+ */
+public final class Pile {
+    public static final int STOCK = 1;
+    public static final int WASTE = 1 << 1;
+
+    private static final int FOUNDATION_SHIFT = 2;
+    private static final int TABLEAU_SHIFT = FOUNDATION_SHIFT + Board.FOUNDATION_SIZE;
+
+    public static final int ALL = (1 << (TABLEAU_SHIFT + Board.TABLEAU_SIZE)) - 1;
+
+    private Pile() {
+    }
+
+    public static int foundation(int i) {
+        return 1 << (FOUNDATION_SHIFT + i);
+    }
+
+    public static int column(int i) {
+        return 1 << (TABLEAU_SHIFT + i);
+    }
+
+    /* The piles an encoded move changes, whether it is played or taken back. */
+    public static int of(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        switch (Move.kind(move)) {
+            case Move.STOCK:
+                return STOCK | WASTE;
+            case Move.WASTE_TO_FOUNDATION:
+                return WASTE | foundation(to);
+            case Move.WASTE_TO_TABLEAU:
+                return WASTE | column(to);
+            case Move.TABLEAU_TO_FOUNDATION:
+                return column(from) | foundation(to);
+            case Move.TABLEAU_TO_TABLEAU:
+                return column(from) | column(to);
+            default:
+                return ALL;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package backend;
+
+import metrics.Histogram;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.CRC32;
+
+/**
+ * Aggregates of finished games: how many were won, the streaks of wins, and
+ * the time and moves it took to win, as histograms. Adding a game takes O(1)
+ * and the aggregates take the same few kilobytes however many games they
+ * cover, so they load at once. Aggregates of consecutive runs of games merge
+ * into the aggregates of the whole run.
+ *
+ * The saved layout, big-endian, is: header (MAGIC, VERSION), the game and win
+ * counts, the three streaks, the two histograms as written by Histogram.write,
+ * then a CRC32 of everything before it.
+ */
+public class PlayerStats {
+    static final int MAGIC = 0x534F4C50;
+    static final int VERSION = 1;
+
+    private static final int MAX_SIZE = 2 * Integer.BYTES + 5 * Long.BYTES + 2 * Histogram.MAX_BYTES + Integer.BYTES;
+
+    private long games;
+    private long wins;
+
+    /* The wins before the first game lost, the wins since the last game lost, and the longest run of wins. */
+    private long leadingWins;
+    private long currentStreak;
+    private long bestStreak;
+
+    /* The active play time, in milliseconds, and the moves of every game won. */
+    private final Histogram winMillis;
+    private final Histogram winMoves;
+
+    public PlayerStats() {
+        this(new Histogram(), new Histogram());
+    }
+
+    private PlayerStats(Histogram winMillis, Histogram winMoves) {
+        this.winMillis = winMillis;
+        this.winMoves = winMoves;
+    }
+
+    public PlayerStats(PlayerStats other) {
+        this();
+        this.merge(other);
+    }
+
+    /* Count a finished game, played after every game counted so far. */
+    public void add(boolean won, int moves, long millis) {
+        this.games += 1;
+        if (won) {
+            this.wins += 1;
+            if (this.leadingWins == this.games - 1) {
+                this.leadingWins += 1;
+            }
+            this.currentStreak += 1;
+            this.bestStreak = Math.max(this.bestStreak, this.currentStreak);
+            this.winMillis.record(millis);
+            this.winMoves.record(moves);
+        } else {
+            this.currentStreak = 0;
+        }
+    }
+
+    /* Count the games of other, as played after every game counted so far. */
+    public void merge(PlayerStats other) {
+        boolean allWon = this.wins == this.games;
+        this.bestStreak = Math.max(Math.max(this.bestStreak, other.bestStreak), this.currentStreak + other.leadingWins);
+        if (allWon) {
+            this.leadingWins += other.leadingWins;
+        }
+        this.currentStreak = other.wins == other.games ? this.currentStreak + other.currentStreak
+                : other.currentStreak;
+        this.games += other.games;
+        this.wins += other.wins;
+        this.winMillis.add(other.winMillis);
+        this.winMoves.add(other.winMoves);
+    }
+
+    public long getGames() {
+        return this.games;
+    }
+
+    public long getWins() {
+        return this.wins;
+    }
+
+    /* The fraction of games won, or 0 before any game. */
+    public double getWinRate() {
+        return this.games == 0 ? 0 : (double) this.wins / this.games;
+    }
+
+    /* The number of games won since the last game lost. */
+    public long getCurrentStreak() {
+        return this.currentStreak;
+    }
+
+    public long getBestStreak() {
+        return this.bestStreak;
+    }
+
+    /* The active play time of won games at a fraction of them, in milliseconds, to within about 6%. */
+    public long getWinMillis(double fraction) {
+        return this.winMillis.getPercentile(fraction);
+    }
+
+    /* The moves of won games at a fraction of them. */
+    public long getWinMoves(double fraction) {
+        return this.winMoves.getPercentile(fraction);
+    }
+
+    /**
+     * Write these aggregates to a file, atomically: they are written next to the
+     * file first and then moved over it.
+     */
+    public void save(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(MAX_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        buffer.putLong(this.games).putLong(this.wins);
+        buffer.putLong(this.leadingWins).putLong(this.currentStreak).putLong(this.bestStreak);
+        this.winMillis.write(buffer);
+        this.winMoves.write(buffer);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        AtomicFiles.write(path, buffer.array(), buffer.position());
+    }
+
+    /* Read aggregates saved by save. */
+    public static PlayerStats load(Path path) throws IOException {
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not player stats of version " + VERSION + ": " + path);
+            }
+            int checked = bytes.length - Integer.BYTES;
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, checked);
+            if (buffer.getInt(checked) != (int) crc.getValue()) {
+                throw new IOException("Corrupt player stats: " + path);
+            }
+            long games = buffer.getLong();
+            long wins = buffer.getLong();
+            long leadingWins = buffer.getLong();
+            long currentStreak = buffer.getLong();
+            long bestStreak = buffer.getLong();
+            PlayerStats stats = new PlayerStats(Histogram.read(buffer), Histogram.read(buffer));
+            stats.games = games;
+            stats.wins = wins;
+            stats.leadingWins = leadingWins;
+            stats.currentStreak = currentStreak;
+            stats.bestStreak = bestStreak;
+            return stats;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Corrupt player stats: " + path, e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games, %d won (%.1f%%), streak %d, best %d, time to win p50 %.0f s p90 %.0f s, "
+                + "moves to win p50 %d p90 %d", this.games, this.wins, 100 * this.getWinRate(), this.currentStreak,
+                this.bestStreak, this.getWinMillis(0.5) / 1e3, this.getWinMillis(0.9) / 1e3, this.getWinMoves(0.5),
+                this.getWinMoves(0.9));
+    }
+}
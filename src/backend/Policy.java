@@ -0,0 +1,21 @@
+package backend;
+
+/**
+ * Chooses the moves of a simulated game. A policy plays one game at a time and
+ * is only ever used by one thread.
+ */
+public interface Policy {
+    /* Called once a game is dealt, before its first move. */
+    default void start(Board board) {
+    }
+
+    /**
+     * Choose one of the legal moves of a position. The board may be used to look
+     * ahead, but must be left as it was.
+     *
+     * @param moves the legal moves, as generated by Board.generateMoves.
+     * @param count the number of legal moves, at least one.
+     * @return the move to play, or -1 to give up the game.
+     */
+    int choose(Board board, int[] moves, int count);
+}
@@ -0,0 +1,17 @@
+package backend;
+
+import java.util.SplittableRandom;
+
+/* Plays a uniformly random legal move. */
+public class RandomPolicy implements Policy {
+    private final SplittableRandom random;
+
+    public RandomPolicy(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public int choose(Board board, int[] moves, int count) {
+        return moves[this.random.nextInt(count)];
+    }
+}
@@ -0,0 +1,168 @@
+package backend;
+
+import metrics.Histogram;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Plays a range of deals to the end with a policy, headless, on a number of
+ * threads. Every thread has its own policy and board, and claims deals from a
+ * shared counter a chunk at a time. A game ends when it is won, when the policy
+ * gives up or has no legal move, or after maxMoves moves. Games can be
+ * appended to a record file as they end, in the order they end rather than the
+ * order of their deals.
+ */
+public class Simulation {
+    public static final int DEFAULT_MAX_MOVES = Solver.MAX_DEPTH;
+
+    /* How many consecutive deals a thread claims at once. */
+    private static final int CHUNK = 64;
+
+    private final int threads;
+    private final Supplier<Policy> policies;
+    private final int maxMoves;
+
+    /* Where every game played is appended, or null. Shared by the threads. */
+    private final GameRecordWriter records;
+
+    /* policies makes a new policy for every thread. */
+    public Simulation(int threads, Supplier<Policy> policies, int maxMoves) {
+        this(threads, policies, maxMoves, null);
+    }
+
+    /* Also append every game played to records, if not null. The caller closes it. */
+    public Simulation(int threads, Supplier<Policy> policies, int maxMoves, GameRecordWriter records) {
+        this.threads = threads;
+        this.policies = policies;
+        this.maxMoves = maxMoves;
+        this.records = records;
+    }
+
+    /**
+     * Play the deals [firstDeal, firstDeal + count), passing a report of the games
+     * played so far to progress every reportMillis.
+     *
+     * @return the report of the whole run.
+     */
+    public SimulationReport run(long firstDeal, long count, long reportMillis, Consumer<SimulationReport> progress)
+            throws InterruptedException {
+        Run run = new Run(firstDeal, firstDeal + count, this.threads);
+        CountDownLatch done = new CountDownLatch(this.threads);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] workers = new Thread[this.threads];
+        for (int i = 0; i < workers.length; i += 1) {
+            int thread = i;
+            workers[i] = new Thread(() -> {
+                try {
+                    this.play(run, run.latencies[thread]);
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                    run.next.set(run.end);
+                } finally {
+                    done.countDown();
+                }
+            }, "simulation-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+
+        while (!done.await(reportMillis, TimeUnit.MILLISECONDS)) {
+            progress.accept(run.report());
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Simulation failed", failure.get());
+        }
+        return run.report();
+    }
+
+    /* Play claimed deals, recording the time of every move, from generating the moves to applying one, into latency. */
+    private void play(Run run, Histogram latency) {
+        Policy policy = this.policies.get();
+        Board board = Board.empty();
+        int[] moves = new int[Move.MAX_MOVES];
+        for (long from = run.next.getAndAdd(CHUNK); from < run.end; from = run.next.getAndAdd(CHUNK)) {
+            long to = Math.min(run.end, from + CHUNK);
+            for (long deal = from; deal < to; deal += 1) {
+                board.deal(deal);
+                policy.start(board);
+                int played = 0;
+                long last = System.nanoTime();
+                while (played < this.maxMoves && !board.isWon()) {
+                    int count = board.generateMoves(moves);
+                    int move = count == 0 ? -1 : policy.choose(board, moves, count);
+                    if (move < 0 || !board.apply(move)) {
+                        break;
+                    }
+                    long now = System.nanoTime();
+                    latency.record(now - last);
+                    last = now;
+                    played += 1;
+                }
+                run.record(board.isWon(), played);
+                if (this.records != null) {
+                    this.append(board);
+                }
+            }
+        }
+    }
+
+    private void append(Board board) {
+        synchronized (this.records) {
+            try {
+                this.records.append(board);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /* The shared state of one run. */
+    private static class Run {
+        private final AtomicLong next;
+        private final long end;
+        private final long start;
+        private final LongAdder games = new LongAdder();
+        private final LongAdder wins = new LongAdder();
+        private final LongAdder moves = new LongAdder();
+        private final Histogram moveCounts = new Histogram();
+
+        /* The move latencies of each thread, kept apart so that the threads do not contend on them. */
+        private final Histogram[] latencies;
+
+        Run(long first, long end, int threads) {
+            this.next = new AtomicLong(first);
+            this.end = end;
+            this.start = System.nanoTime();
+            this.latencies = new Histogram[threads];
+            for (int i = 0; i < threads; i += 1) {
+                this.latencies[i] = new Histogram();
+            }
+        }
+
+        void record(boolean won, int moves) {
+            this.games.increment();
+            if (won) {
+                this.wins.increment();
+            }
+            this.moves.add(moves);
+            this.moveCounts.record(moves);
+        }
+
+        SimulationReport report() {
+            Histogram latency = new Histogram();
+            for (Histogram histogram : this.latencies) {
+                latency.add(histogram);
+            }
+            return new SimulationReport(this.games.sum(), this.wins.sum(), this.moves.sum(),
+                    System.nanoTime() - this.start, latency, this.moveCounts);
+        }
+    }
+}
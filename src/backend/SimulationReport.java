@@ -0,0 +1,80 @@
+package backend;
+
+import metrics.Histogram;
+
+public class SimulationReport {
+    private final long games;
+    private final long wins;
+    private final long moves;
+    private final long nanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long maxNanos;
+    private final long p50Moves;
+    private final long p99Moves;
+
+    public SimulationReport(long games, long wins, long moves, long nanos, Histogram latency, Histogram moveCounts) {
+        this.games = games;
+        this.wins = wins;
+        this.moves = moves;
+        this.nanos = nanos;
+        this.p50Nanos = latency.getPercentile(0.5);
+        this.p99Nanos = latency.getPercentile(0.99);
+        this.maxNanos = latency.getMax();
+        this.p50Moves = moveCounts.getPercentile(0.5);
+        this.p99Moves = moveCounts.getPercentile(0.99);
+    }
+
+    public long getGames() {
+        return this.games;
+    }
+
+    public long getWins() {
+        return this.wins;
+    }
+
+    public long getMoves() {
+        return this.moves;
+    }
+
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    public double getGamesPerSecond() {
+        return this.games / (this.nanos / 1e9);
+    }
+
+    public double getWinRate() {
+        return this.games == 0 ? 0 : (double) this.wins / this.games;
+    }
+
+    /* The time to choose and play one move, at the median. */
+    public long getP50Nanos() {
+        return this.p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return this.p99Nanos;
+    }
+
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    public long getP50Moves() {
+        return this.p50Moves;
+    }
+
+    public long getP99Moves() {
+        return this.p99Moves;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d games in %.2f s (%.1f games/s): %.2f%% won, moves %.1f mean %d p50 %d p99, "
+                + "move latency %.2f us p50 %.2f us p99 %.1f us max", this.games, this.nanos / 1e9,
+                this.getGamesPerSecond(), 100 * this.getWinRate(), this.games == 0 ? 0 : (double) this.moves / this.games,
+                this.p50Moves, this.p99Moves, this.p50Nanos / 1e3, this.p99Nanos / 1e3, this.maxNanos / 1e3);
+    }
+}
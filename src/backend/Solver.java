@@ -0,0 +1,286 @@
+package backend;
+
+import backend.Card.Card;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Decides whether a position can be won, using the move rules of Board.
+ * The search is a depth-first search that plays and takes back moves on a
+ * single working copy of the board:
+ * - moves are tried in order of how much progress they make (foundation moves
+ * first, waste to tableau moves last).
+ * - moves that only undo or redo the previous move are pruned.
+ * - every position reached is recorded by its canonical hash in a
+ * transposition table and never searched twice, nor is any position that
+ * only differs from it by the order of the columns or of the foundations.
+ * The search stops when it runs out of nodes, time or depth, or
+ * is cancelled, in which case the verdict is UNKNOWN.
+ */
+public class Solver {
+    public static final long DEFAULT_MAX_NODES = 2_000_000;
+    public static final long DEFAULT_MAX_MILLIS = 1_000;
+    public static final long DEFAULT_MAX_BYTES = 64L << 20;
+    public static final int MAX_DEPTH = 4096;
+
+    /* How many nodes are expanded between two checks of the clock. */
+    private static final int CLOCK_INTERVAL = 1 << 12;
+
+    /*
+     * Move priorities, lowest first. Waste cards stay reachable through the stock,
+     * so moving them onto the tableau is tried last.
+     */
+    private static final int FOUNDATION = 0;
+    private static final int PROGRESS = 1;
+    private static final int STOCK = 2;
+    private static final int SHIFT = 3;
+    private static final int WASTE = 4;
+
+    private final long maxNodes;
+    private final long maxNanos;
+    private final TranspositionTable table;
+
+    /* The working board, and search frames, one per depth, reused across searches. */
+    private final Board board;
+    private int[][] moves;
+    private int[] counts;
+    private int[] next;
+
+    private final int[] legal;
+    private final int[] priorities;
+
+    private boolean lastTargetPruning;
+
+    public Solver() {
+        this(DEFAULT_MAX_NODES, DEFAULT_MAX_MILLIS, DEFAULT_MAX_BYTES);
+    }
+
+    public Solver(long maxNodes, long maxMillis, long maxBytes) {
+        this.maxNodes = maxNodes;
+        this.maxNanos = maxMillis * 1_000_000;
+        this.table = new TranspositionTable(maxBytes);
+        this.board = Board.empty();
+        this.moves = new int[0][];
+        this.counts = new int[0];
+        this.next = new int[0];
+        this.legal = new int[Move.MAX_MOVES];
+        this.priorities = new int[Move.MAX_MOVES];
+        this.lastTargetPruning = true;
+    }
+
+    /* Whether a card just moved onto the tableau is kept from moving again; on by default. */
+    void setLastTargetPruning(boolean lastTargetPruning) {
+        this.lastTargetPruning = lastTargetPruning;
+    }
+
+    /* Search for a winning line from the given position. The board is not modified. */
+    public SolverResult solve(Board board) {
+        return this.solve(board, null, 0);
+    }
+
+    /**
+     * Search for a winning line, skipping positions that other searches of the
+     * same deal have already claimed in a shared table. Keys in the shared table
+     * are salted so that different deals do not collide, and added under the
+     * shared table's current search.
+     */
+    public SolverResult solve(Board board, TranspositionTable shared, long salt) {
+        return this.solve(board, shared, salt, shared == null ? 0 : shared.getSearch(), this.maxNodes,
+                System.nanoTime() + this.maxNanos);
+    }
+
+    /* Search with the shared table's search number, an explicit node budget and a System.nanoTime deadline. */
+    SolverResult solve(Board board, TranspositionTable shared, long salt, long sharedSearch, long maxNodes,
+            long deadline) {
+        return this.solve(board, shared, salt, sharedSearch, maxNodes, deadline, null);
+    }
+
+    /*
+     * Search as above, also giving up as UNKNOWN once cancelled returns true. It is
+     * polled together with the clock, so a search stops within CLOCK_INTERVAL nodes.
+     */
+    SolverResult solve(Board board, TranspositionTable shared, long salt, long sharedSearch, long maxNodes,
+            long deadline, BooleanSupplier cancelled) {
+        long start = System.nanoTime();
+        this.table.newSearch();
+
+        if (board.isWon()) {
+            return new SolverResult(Verdict.SOLVED, new int[0], 0, System.nanoTime() - start);
+        }
+
+        this.ensureDepth(0);
+        Board current = this.board;
+        current.copyFrom(board);
+        this.table.add(current.canonicalHash(), MAX_DEPTH);
+        this.counts[0] = this.generate(current, -1, this.moves[0]);
+        this.next[0] = 0;
+
+        long nodes = 0;
+        boolean exhausted = true;
+        int depth = 0;
+        while (depth >= 0) {
+            if (this.next[depth] == this.counts[depth]) {
+                if (depth > 0) {
+                    current.undo();
+                }
+                depth -= 1;
+                continue;
+            }
+            int move = this.moves[depth][this.next[depth]];
+            this.next[depth] += 1;
+
+            if (depth + 1 >= MAX_DEPTH) {
+                exhausted = false;
+                continue;
+            }
+            current.apply(move);
+
+            nodes += 1;
+            if (current.isWon()) {
+                return new SolverResult(Verdict.SOLVED, this.line(depth), nodes, System.nanoTime() - start);
+            }
+            if (nodes >= maxNodes || (nodes % CLOCK_INTERVAL == 0
+                    && (System.nanoTime() - deadline > 0 || cancelled != null && cancelled.getAsBoolean()))) {
+                return new SolverResult(Verdict.UNKNOWN, new int[0], nodes, System.nanoTime() - start);
+            }
+            long key = current.canonicalHash();
+            /* Positions near the root stand for the most search, so they are kept longest. */
+            int remaining = MAX_DEPTH - depth;
+            if (!this.table.add(key, remaining) || (shared != null && !shared.add(key ^ salt, remaining, sharedSearch))) {
+                current.undo();
+                continue;
+            }
+
+            depth += 1;
+            this.ensureDepth(depth);
+            this.counts[depth] = this.generate(current, move, this.moves[depth]);
+            this.next[depth] = 0;
+        }
+
+        Verdict verdict = exhausted ? Verdict.UNSOLVABLE : Verdict.UNKNOWN;
+        return new SolverResult(verdict, new int[0], nodes, System.nanoTime() - start);
+    }
+
+    /* Write the moves the search would try first from a position into dest. */
+    int rootMoves(Board board, int[] dest) {
+        return this.generate(board, -1, dest);
+    }
+
+    /* The moves chosen at every depth up to and including the given one. */
+    private int[] line(int depth) {
+        int[] line = new int[depth + 1];
+        for (int i = 0; i <= depth; i += 1) {
+            line[i] = this.moves[i][this.next[i] - 1];
+        }
+        return line;
+    }
+
+    private void ensureDepth(int depth) {
+        if (depth < this.moves.length) {
+            return;
+        }
+        int length = Math.min(MAX_DEPTH, Math.max(64, this.moves.length * 2));
+        int old = this.moves.length;
+        this.moves = Arrays.copyOf(this.moves, length);
+        this.counts = Arrays.copyOf(this.counts, length);
+        this.next = Arrays.copyOf(this.next, length);
+        for (int i = old; i < length; i += 1) {
+            this.moves[i] = new int[Move.MAX_MOVES];
+        }
+    }
+
+    /**
+     * Write the moves worth trying from a position into dest, best first.
+     *
+     * @return the number of moves written.
+     */
+    private int generate(Board board, int lastMove, int[] dest) {
+        int legal = board.generateMoves(this.legal);
+        int count = 0;
+
+        /*
+         * A card that was just moved onto the tableau could have gone straight to
+         * wherever it would be moved next, so do not move it again. That does not
+         * hold if moving it turned over a card: it may want to go back on top of it.
+         */
+        int lastTarget = this.lastTargetPruning && lastMove >= 0 && Move.isToTableau(lastMove)
+                && !board.isLastMoveFlipping() ? Move.to(lastMove) : -1;
+        int emptyColumn = -1;
+        for (int i = 0; i < Board.TABLEAU_SIZE; i += 1) {
+            if (board.getTableauSize(i) == 0) {
+                emptyColumn = i;
+                break;
+            }
+        }
+
+        /* Aces can go to any empty foundation; only the first one is kept. */
+        int lastFoundationSource = -1;
+        for (int i = 0; i < legal; i += 1) {
+            int move = this.legal[i];
+            int from = Move.from(move);
+            int to = Move.to(move);
+            switch (Move.kind(move)) {
+                case Move.STOCK:
+                    count = this.add(dest, count, move, STOCK);
+                    break;
+                case Move.WASTE_TO_FOUNDATION:
+                case Move.TABLEAU_TO_FOUNDATION:
+                    if (move >>> 4 != lastFoundationSource) {
+                        lastFoundationSource = move >>> 4;
+                        count = this.add(dest, count, move, FOUNDATION);
+                    }
+                    break;
+                case Move.WASTE_TO_TABLEAU:
+                    if (this.isUsefulTarget(board, to, emptyColumn)) {
+                        count = this.add(dest, count, move, WASTE);
+                    }
+                    break;
+                case Move.TABLEAU_TO_TABLEAU:
+                    CardColumn column = board.getColumn(from);
+                    if (from == lastTarget || !this.isUsefulTarget(board, to, emptyColumn)
+                            || (column.size() == 1 && to == emptyColumn)) {
+                        break;
+                    }
+                    /* Moving the card helps if it reveals a hidden card or frees one for the foundation. */
+                    int revealed = column.size() - column.getHiddenCount();
+                    boolean progress = column.getHiddenCount() > 0 && revealed == 1
+                            || revealed > 1 && this.foundationFor(board, column.getCardAt(column.size() - 2)) >= 0;
+                    count = this.add(dest, count, move, progress ? PROGRESS : SHIFT);
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        return count;
+    }
+
+    /* Empty columns are interchangeable, so only the first one is a target. */
+    private boolean isUsefulTarget(Board board, int column, int emptyColumn) {
+        return board.getTableauSize(column) != 0 || column == emptyColumn;
+    }
+
+    /* The foundation a card can move to, preferring the first empty one for aces. */
+    private int foundationFor(Board board, Card card) {
+        for (int i = 0; i < Board.FOUNDATION_SIZE; i += 1) {
+            if (board.isMovableToFoundation(card, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /* Insert a move after every move of the same or better priority. */
+    private int add(int[] dest, int count, int move, int priority) {
+        int i = count;
+        while (i > 0 && this.priorities[i - 1] > priority) {
+            dest[i] = dest[i - 1];
+            this.priorities[i] = this.priorities[i - 1];
+            i -= 1;
+        }
+        dest[i] = move;
+        this.priorities[i] = priority;
+        return count + 1;
+    }
+}
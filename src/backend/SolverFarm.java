@@ -0,0 +1,265 @@
+package backend;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Solves a range of deals in parallel on a work-stealing pool.
+ * Every deal is first solved on a single thread with a small node budget. Deals
+ * that exceed it are searched again in parallel: the first moves are split into
+ * separate tasks that share a bounded transposition table, so that no two tasks
+ * search the same position. Splitting goes deeper until there are a few tasks per
+ * thread or a task's share of the node budget gets too small to be worth one. Every hard deal is a new search of the table, so
+ * the entries of deals finished earlier are the first to be replaced. Results are written to the output as they complete,
+ * one line per deal.
+ */
+public class SolverFarm {
+    public static final long DEFAULT_NODES = 200_000;
+    public static final long DEFAULT_HARD_NODES = 2_000_000;
+    public static final long DEFAULT_MAX_MILLIS = 10_000;
+    public static final long DEFAULT_CACHE_BYTES = 256L << 20;
+
+    /* How many deals a task solves without splitting further. */
+    private static final int CHUNK = 16;
+
+    /* How many tasks per thread a hard deal is split into, at most. */
+    private static final int TASKS_PER_THREAD = 4;
+
+    /* The smallest node budget a split task gets. */
+    private static final long MIN_TASK_NODES = 10_000;
+
+    private static final long SOLVER_BYTES = 16L << 20;
+
+    /* How often results are flushed to the output. */
+    private static final long FLUSH_NANOS = 1_000_000_000L;
+
+    private final ForkJoinPool pool;
+    private final TranspositionTable cache;
+    private final ThreadLocal<Solver> solvers;
+    private final long nodes;
+    private final long hardNodes;
+    private final long maxNanos;
+
+    public SolverFarm(int parallelism) {
+        this(parallelism, DEFAULT_NODES, DEFAULT_HARD_NODES, DEFAULT_MAX_MILLIS, DEFAULT_CACHE_BYTES);
+    }
+
+    public SolverFarm(int parallelism, long nodes, long hardNodes, long maxMillis, long cacheBytes) {
+        this.pool = new ForkJoinPool(parallelism);
+        this.cache = new TranspositionTable(cacheBytes);
+        this.solvers = ThreadLocal.withInitial(() -> new Solver(nodes, maxMillis, SOLVER_BYTES));
+        this.nodes = nodes;
+        this.hardNodes = hardNodes;
+        this.maxNanos = maxMillis * 1_000_000;
+    }
+
+    /**
+     * Solve the deals [firstSeed, firstSeed + count), writing one line per deal to
+     * output: seed, verdict, nodes searched, wall time in microseconds and the
+     * length of the winning line. Every deal gets at most nodes nodes on one
+     * thread, then hardNodes nodes spread over parallel tasks, all within maxMillis.
+     */
+    public SurveySummary survey(long firstSeed, long count, Path output) throws IOException {
+        long start = System.nanoTime();
+        Sink sink;
+        try (Writer writer = Files.newBufferedWriter(output)) {
+            writer.write("seed,verdict,nodes,micros,moves\n");
+            sink = new Sink(writer);
+            try {
+                this.pool.invoke(new RangeTask(firstSeed, firstSeed + count, sink));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        }
+        return new SurveySummary(count, sink.solved.sum(), sink.unsolvable.sum(), sink.nodes.sum(),
+                System.nanoTime() - start);
+    }
+
+    public void shutdown() {
+        this.pool.shutdown();
+    }
+
+    private SolverResult solve(long seed) {
+        long start = System.nanoTime();
+        long deadline = start + this.maxNanos;
+        Board board = new Board(seed);
+        SolverResult result = this.solvers.get().solve(board, null, 0, 0, this.nodes, deadline);
+        if (result.getVerdict() != Verdict.UNKNOWN) {
+            return result;
+        }
+        long salt = seed * 0x9E3779B97F4A7C15L;
+        long search = this.cache.newSearch();
+        SplitTask task = new SplitTask(board, new int[0], 1, this.hardNodes, deadline, salt, search,
+                new AtomicBoolean());
+        SolverResult hard = task.invoke();
+        return new SolverResult(hard.getVerdict(), hard.getMoves(), result.getNodes() + hard.getNodes(),
+                System.nanoTime() - start);
+    }
+
+    /* Collects per-deal results. Lines are written under the writer's lock. */
+    private static class Sink {
+        private final Writer writer;
+        private final LongAdder solved = new LongAdder();
+        private final LongAdder unsolvable = new LongAdder();
+        private final LongAdder nodes = new LongAdder();
+        private long flushed;
+
+        Sink(Writer writer) {
+            this.writer = writer;
+            this.flushed = System.nanoTime();
+        }
+
+        void accept(long seed, SolverResult result) {
+            if (result.getVerdict() == Verdict.SOLVED) {
+                this.solved.increment();
+            } else if (result.getVerdict() == Verdict.UNSOLVABLE) {
+                this.unsolvable.increment();
+            }
+            this.nodes.add(result.getNodes());
+
+            String line = seed + "," + result.getVerdict() + "," + result.getNodes() + ","
+                    + result.getNanos() / 1_000 + "," + result.getMoves().length + "\n";
+            synchronized (this.writer) {
+                try {
+                    this.writer.write(line);
+                    long now = System.nanoTime();
+                    if (now - this.flushed > FLUSH_NANOS) {
+                        this.writer.flush();
+                        this.flushed = now;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /* Solves a range of deals, splitting it in halves until it is small. */
+    private class RangeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long from;
+        private final long to;
+        private final transient Sink sink;
+
+        RangeTask(long from, long to, Sink sink) {
+            this.from = from;
+            this.to = to;
+            this.sink = sink;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= CHUNK) {
+                for (long seed = this.from; seed < this.to; seed += 1) {
+                    this.sink.accept(seed, solve(seed));
+                }
+            } else {
+                long middle = this.from + (this.to - this.from) / 2;
+                invokeAll(new RangeTask(this.from, middle, this.sink), new RangeTask(middle, this.to, this.sink));
+            }
+        }
+    }
+
+    /*
+     * Searches one hard deal: splits on its moves, and on the moves after them,
+     * until the deal has TASKS_PER_THREAD tasks per thread or a further split would
+     * leave a task fewer than MIN_TASK_NODES nodes. Then solves every resulting
+     * position against the shared table, dividing the node budget between them. Once one task finds a win or the deadline passes, tasks that
+     * have not started yet are skipped.
+     */
+    private class SplitTask extends RecursiveTask<SolverResult> {
+        private static final long serialVersionUID = 1L;
+
+        private final transient Board board;
+        private final int[] line;
+
+        /* How many tasks the deal is split into at this task's depth, at least. */
+        private final int width;
+        private final long nodes;
+        private final long deadline;
+        private final long salt;
+
+        /* The deal's search number in the shared table. */
+        private final long search;
+        private final AtomicBoolean found;
+
+        SplitTask(Board board, int[] line, int width, long nodes, long deadline, long salt, long search,
+                AtomicBoolean found) {
+            this.board = board;
+            this.line = line;
+            this.width = width;
+            this.nodes = nodes;
+            this.deadline = deadline;
+            this.salt = salt;
+            this.search = search;
+            this.found = found;
+        }
+
+        @Override
+        protected SolverResult compute() {
+            if (this.found.get() || System.nanoTime() - this.deadline > 0) {
+                return new SolverResult(Verdict.UNKNOWN, new int[0], 0, 0);
+            }
+            if (this.board.isWon()) {
+                this.found.set(true);
+                return new SolverResult(Verdict.SOLVED, this.line, 0, 0);
+            }
+            int[] moves = new int[Move.MAX_MOVES];
+            int count = solvers.get().rootMoves(this.board, moves);
+            if (count == 0 || this.width >= TASKS_PER_THREAD * pool.getParallelism()
+                    || this.nodes / count < MIN_TASK_NODES) {
+                SolverResult result = solvers.get().solve(this.board, cache, this.salt, this.search, this.nodes,
+                        this.deadline);
+                if (result.getVerdict() != Verdict.SOLVED) {
+                    return result;
+                }
+                this.found.set(true);
+                return new SolverResult(Verdict.SOLVED, concat(this.line, result.getMoves()), result.getNodes(),
+                        result.getNanos());
+            }
+
+            SplitTask[] tasks = new SplitTask[count];
+            for (int i = 0; i < count; i += 1) {
+                Board child = new Board(this.board);
+                child.apply(moves[i]);
+                int[] line = concat(this.line, new int[] { moves[i] });
+                tasks[i] = new SplitTask(child, line, this.width * count, this.nodes / count, this.deadline,
+                        this.salt, this.search, this.found);
+            }
+            invokeAll(tasks);
+
+            long nodes = 0;
+            SolverResult solved = null;
+            boolean exhausted = true;
+            for (SplitTask task : tasks) {
+                SolverResult result = task.join();
+                nodes += result.getNodes();
+                if (result.getVerdict() == Verdict.SOLVED && solved == null) {
+                    solved = result;
+                } else if (result.getVerdict() == Verdict.UNKNOWN) {
+                    exhausted = false;
+                }
+            }
+            if (solved != null) {
+                return new SolverResult(Verdict.SOLVED, solved.getMoves(), nodes, 0);
+            }
+            return new SolverResult(exhausted ? Verdict.UNSOLVABLE : Verdict.UNKNOWN, new int[0], nodes, 0);
+        }
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] result = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, result, a.length, b.length);
+        return result;
+    }
+}
@@ -0,0 +1,39 @@
+package backend;
+
+/*
+ * Solves every deal before its first move and plays the winning line, or gives
+ * up at once if the solver finds none within its budget.
+ */
+public class SolverPolicy implements Policy {
+    /* The size of each policy's off-heap table; one policy plays on each simulation thread. */
+    public static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+    private final Solver solver;
+    private int[] line;
+    private int next;
+
+    public SolverPolicy(long maxNodes, long maxMillis) {
+        this(maxNodes, maxMillis, DEFAULT_MAX_BYTES);
+    }
+
+    public SolverPolicy(long maxNodes, long maxMillis, long maxBytes) {
+        this.solver = new Solver(maxNodes, maxMillis, maxBytes);
+        this.line = new int[0];
+    }
+
+    @Override
+    public void start(Board board) {
+        this.line = this.solver.solve(board).getMoves();
+        this.next = 0;
+    }
+
+    @Override
+    public int choose(Board board, int[] moves, int count) {
+        if (this.next == this.line.length) {
+            return -1;
+        }
+        int move = this.line[this.next];
+        this.next += 1;
+        return move;
+    }
+}
@@ -0,0 +1,32 @@
+package backend;
+
+public class SolverResult {
+    private final Verdict verdict;
+    private final int[] moves;
+    private final long nodes;
+    private final long nanos;
+
+    public SolverResult(Verdict verdict, int[] moves, long nodes, long nanos) {
+        this.verdict = verdict;
+        this.moves = moves;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    public Verdict getVerdict() {
+        return this.verdict;
+    }
+
+    /* The winning line as encoded moves (see Move), empty unless SOLVED. */
+    public int[] getMoves() {
+        return this.moves;
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    public long getNanos() {
+        return this.nanos;
+    }
+}
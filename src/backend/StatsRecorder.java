@@ -0,0 +1,174 @@
+package backend;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows the games played on a board and keeps the player's stats:
+ * - a game ends when it is won, or when a new game is dealt after at least
+ * one move of the last one, which counts as a loss.
+ * - the time of a game is the time spent playing it, with every pause
+ * between two changes counted as at most IDLE_NANOS. A game restored from
+ * a save only counts the time since it was restored.
+ * - every finished game is appended to the history log and added to the
+ * aggregates, which are saved next to it. Both writes happen on a background
+ * thread, the log first, so that aggregates behind the log after a crash are
+ * caught up from it the next time.
+ * Must be used by the thread that owns the board.
+ */
+public class StatsRecorder implements BoardListener {
+    private static final long IDLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final GameHistory history;
+    private final Path statsPath;
+    private final ExecutorService writer;
+
+    /* The aggregates, owned by the board thread. Saves and readers get copies. */
+    private final PlayerStats stats;
+    private volatile PlayerStats published;
+    private volatile IOException failure;
+
+    /* The game being played. */
+    private long dealNumber;
+    private int moves;
+    private boolean finished;
+    private long activeNanos;
+    private long lastNanos;
+
+    private StatsRecorder(GameHistory history, Path statsPath, PlayerStats stats) {
+        this.history = history;
+        this.statsPath = statsPath;
+        this.stats = stats;
+        this.published = new PlayerStats(stats);
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stats");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open the history log at historyPath and the aggregates saved at statsPath.
+     * The aggregates are read as saved and only the games logged after them are
+     * read from the log; if they are missing or unreadable, the whole log is read
+     * again. Aggregates that caught up are saved again.
+     */
+    public static StatsRecorder open(Path historyPath, Path statsPath) throws IOException {
+        Path parent = historyPath.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        GameHistory history = new GameHistory(historyPath);
+        try {
+            PlayerStats stats = null;
+            long saved = -1;
+            if (Files.isRegularFile(statsPath)) {
+                try {
+                    stats = PlayerStats.load(statsPath);
+                    saved = stats.getGames();
+                    history.catchUp(stats);
+                } catch (IOException e) {
+                    stats = null;
+                    saved = -1;
+                }
+            }
+            if (stats == null) {
+                stats = new PlayerStats();
+                history.catchUp(stats);
+            }
+            StatsRecorder recorder = new StatsRecorder(history, statsPath, stats);
+            /* Save aggregates that had to catch up, so that the next start reads no log. */
+            if (stats.getGames() != saved) {
+                try {
+                    stats.save(statsPath);
+                } catch (IOException e) {
+                    recorder.failure = e;
+                }
+            }
+            return recorder;
+        } catch (IOException e) {
+            history.close();
+            throw e;
+        }
+    }
+
+    /* Start following the game on a board, as if it was just dealt or restored. */
+    public void start(Board board) {
+        this.dealNumber = board.getDealNumber();
+        this.moves = board.getMoveCount();
+        this.finished = board.isWon();
+        this.activeNanos = 0;
+        this.lastNanos = System.nanoTime();
+    }
+
+    @Override
+    public void boardChanged(Board board, long version, int piles) {
+        long now = System.nanoTime();
+        this.activeNanos += Math.min(now - this.lastNanos, IDLE_NANOS);
+        this.lastNanos = now;
+        /* Only a deal leaves a board with nothing to undo or redo after changing every pile. */
+        if (piles == Pile.ALL && !board.canUndo() && !board.canRedo()) {
+            if (!this.finished && this.moves > 0) {
+                this.finish(false);
+            }
+            this.start(board);
+            return;
+        }
+        this.moves = board.getMoveCount();
+        if (!this.finished && board.isWon()) {
+            this.finished = true;
+            this.finish(true);
+        }
+    }
+
+    /* The stats of every finished game so far. The result is never changed; do not change it. */
+    public PlayerStats getStats() {
+        return this.published;
+    }
+
+    /* The last error writing the stats, or null. */
+    public IOException getFailure() {
+        return this.failure;
+    }
+
+    /* Write the pending games and stop, waiting at most timeoutMillis. Games finished after close are not saved. */
+    public void close(long timeoutMillis) throws InterruptedException {
+        this.writer.shutdown();
+        if (this.writer.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+            try {
+                this.history.close();
+            } catch (IOException e) {
+                this.failure = e;
+            }
+        }
+    }
+
+    /* Count the game being played and queue its writes. */
+    private void finish(boolean won) {
+        long dealNumber = this.dealNumber;
+        int moves = this.moves;
+        long millis = TimeUnit.NANOSECONDS.toMillis(this.activeNanos);
+        long finishedMillis = System.currentTimeMillis();
+        this.stats.add(won, moves, millis);
+        PlayerStats copy = new PlayerStats(this.stats);
+        this.published = copy;
+        try {
+            this.writer.execute(() -> {
+                try {
+                    this.history.append(dealNumber, won, moves, millis, finishedMillis);
+                    copy.save(this.statsPath);
+                    this.failure = null;
+                } catch (IOException e) {
+                    this.failure = e;
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            /* Closed: the game is not saved. */
+        }
+    }
+}
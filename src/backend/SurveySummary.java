@@ -0,0 +1,53 @@
+package backend;
+
+public class SurveySummary {
+    private final long deals;
+    private final long solved;
+    private final long unsolvable;
+    private final long nodes;
+    private final long nanos;
+
+    public SurveySummary(long deals, long solved, long unsolvable, long nodes, long nanos) {
+        this.deals = deals;
+        this.solved = solved;
+        this.unsolvable = unsolvable;
+        this.nodes = nodes;
+        this.nanos = nanos;
+    }
+
+    public long getDeals() {
+        return this.deals;
+    }
+
+    public long getSolved() {
+        return this.solved;
+    }
+
+    public long getUnsolvable() {
+        return this.unsolvable;
+    }
+
+    /* Deals whose verdict is still UNKNOWN after every budget ran out. */
+    public long getUnknown() {
+        return this.deals - this.solved - this.unsolvable;
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    public long getNanos() {
+        return this.nanos;
+    }
+
+    public double getDealsPerSecond() {
+        return this.deals / (this.nanos / 1e9);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d deals in %.2f s (%.1f deals/s): %d solved, %d unsolvable, %d unknown, %d nodes",
+                this.deals, this.nanos / 1e9, this.getDealsPerSecond(), this.solved, this.unsolvable,
+                this.getUnknown(), this.nodes);
+    }
+}
@@ -0,0 +1,250 @@
+package backend;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fixed-size table of 64-bit position keys, each with a packed entry: a
+ * depth, a verdict and a best move. The table lives off the heap, in direct
+ * buffers of at most 1 GB each, so that even tables of tens of
+ * gigabytes cost the garbage collector nothing. Large tables need a matching
+ * -XX:MaxDirectMemorySize.
+ *
+ * Keys are open-addressed into buckets of four 16-byte slots, one cache line
+ * each. Many threads can use the table at once without locks or atomic
+ * instructions: a slot holds its entry and its key XOR its entry, so a slot
+ * torn by two concurrent writes, or read halfway through one, no longer
+ * matches either key and reads as a miss. When a bucket is full, the
+ * entry of an earlier search or else the shallowest entry is replaced, so the
+ * table may forget positions but never reports a position it was not given.
+ * Two threads adding the same new key at the same moment may both be told it
+ * is new.
+ *
+ * Every search starts with newSearch, which makes the entries of earlier
+ * searches invisible in O(1) instead of clearing the table; they are the first
+ * to be replaced, the oldest first. Searches that share a table while they
+ * run, such as the deals of a survey, each add under the number newSearch
+ * gave them, so that the entries of searches that finished long ago are
+ * replaced before those of searches still running.
+ */
+public class TranspositionTable {
+    public static final int MAX_DEPTH = 0xFFFF;
+
+    private static final int SLOT_SIZE = 2 * Long.BYTES;
+    private static final int BUCKET_SLOTS = 4;
+    private static final int BUCKET_SHIFT = 6;
+    /* The buffers are split into segments as mapped files are. */
+    private static final int SEGMENT_SHIFT = MappedFile.SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = MappedFile.SEGMENT_MASK;
+    private static final int MIN_BUCKETS = 1 << 6;
+
+    /* Entry layout: depth, then the verdict and the move plus one (0 for none), then the search. */
+    private static final int VERDICT_SHIFT = 16;
+    private static final int MOVE_SHIFT = 18;
+    private static final int MOVE_MASK = 0xFFF;
+    private static final int SEARCH_SHIFT = 32;
+    private static final long SEARCH_MASK = 0xFFFF;
+
+    private static final Verdict[] VERDICTS = Verdict.values();
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class,
+            ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] segments;
+    private final long bucketMask;
+
+    /* The number of the current search, never 0 so that an empty slot never belongs to it. */
+    private volatile long search;
+
+    public TranspositionTable(long maxBytes) {
+        long buckets = MIN_BUCKETS;
+        while (buckets << (BUCKET_SHIFT + 1) <= maxBytes) {
+            buckets <<= 1;
+        }
+        long size = buckets << BUCKET_SHIFT;
+        this.segments = new ByteBuffer[(int) ((size + SEGMENT_MASK) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < this.segments.length; i += 1) {
+            int length = (int) Math.min(SEGMENT_MASK + 1, size - ((long) i << SEGMENT_SHIFT));
+            /* Aligned to a cache line, so that a bucket never straddles two. */
+            this.segments[i] = ByteBuffer.allocateDirect(length + (1 << BUCKET_SHIFT)).alignedSlice(1 << BUCKET_SHIFT)
+                    .order(ByteOrder.nativeOrder());
+        }
+        this.bucketMask = buckets - 1;
+        this.search = 1;
+    }
+
+    /* The number of bytes the table takes. */
+    public long getBytes() {
+        return (this.bucketMask + 1) << BUCKET_SHIFT;
+    }
+
+    /* The number of entries the table holds at most. */
+    public long getCapacity() {
+        return (this.bucketMask + 1) * BUCKET_SLOTS;
+    }
+
+    /**
+     * Forget every entry, in O(1), and return the number of the new search.
+     * Entries added by other threads while it runs may belong to either search.
+     * Every 65535 searches the table is cleared for real, so that old entries
+     * cannot come back when the search number wraps around; searches still
+     * running may lose the entries they add meanwhile, which only costs them
+     * positions searched again.
+     */
+    public synchronized long newSearch() {
+        long search = this.search + 1;
+        if (search > SEARCH_MASK) {
+            this.clear();
+            search = 1;
+        }
+        this.search = search;
+        return search;
+    }
+
+    /* The number of the current search. */
+    public long getSearch() {
+        return this.search;
+    }
+
+    /* Empty the table. Not safe while other threads use it. */
+    public void clear() {
+        byte[] zeros = new byte[1 << 16];
+        for (ByteBuffer segment : this.segments) {
+            for (int i = 0; i < segment.capacity(); i += zeros.length) {
+                segment.put(i, zeros, 0, Math.min(zeros.length, segment.capacity() - i));
+            }
+        }
+    }
+
+    /**
+     * Add a key with no verdict or move, as visited by a search that may be
+     * older than the current one.
+     *
+     * @param depth how much searching the entry stands for, at most MAX_DEPTH;
+     *              deeper entries are kept over shallower ones.
+     * @param search the number newSearch gave the search.
+     * @return false if the key was already added by the same search.
+     */
+    public boolean add(long key, int depth, long search) {
+        return this.put(key, pack(depth, null, -1, search), false);
+    }
+
+    /* Add a key as visited by the current search. */
+    public boolean add(long key, int depth) {
+        return this.add(key, depth, this.search);
+    }
+
+    public boolean add(long key) {
+        return this.add(key, 0);
+    }
+
+    /* Store an entry for a key, replacing the key's entry if it has one. */
+    public void store(long key, int depth, Verdict verdict, int move) {
+        this.put(key, pack(depth, verdict, move, this.search), true);
+    }
+
+    /**
+     * Find the entry of a key, as stored by the current search.
+     *
+     * @return the entry, to be read with depth, verdict and move, or 0 if absent.
+     */
+    public long probe(long key) {
+        key = key == 0 ? 1 : key;
+        long bucket = (key ^ (key >>> 32)) & this.bucketMask;
+        ByteBuffer segment = this.segments[(int) (bucket >>> (SEGMENT_SHIFT - BUCKET_SHIFT))];
+        int base = (int) ((bucket << BUCKET_SHIFT) & SEGMENT_MASK);
+        long search = this.search;
+        for (int i = 0; i < BUCKET_SLOTS; i += 1) {
+            int slot = base + i * SLOT_SIZE;
+            long entry = (long) LONGS.get(segment, slot + Long.BYTES);
+            long check = (long) LONGS.get(segment, slot);
+            if ((check ^ entry) == key && searchOf(entry) == search) {
+                return entry;
+            }
+        }
+        return 0;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry & MAX_DEPTH);
+    }
+
+    /* The verdict of an entry, or null if it has none. */
+    public static Verdict verdict(long entry) {
+        int verdict = (int) (entry >>> VERDICT_SHIFT) & 0x3;
+        return verdict == 0 ? null : VERDICTS[verdict - 1];
+    }
+
+    /* The move of an entry (see Move), or -1 if it has none. */
+    public static int move(long entry) {
+        return ((int) (entry >>> MOVE_SHIFT) & MOVE_MASK) - 1;
+    }
+
+    private static long pack(int depth, Verdict verdict, int move, long search) {
+        return Math.min(Math.max(depth, 0), MAX_DEPTH)
+                | (long) (verdict == null ? 0 : verdict.ordinal() + 1) << VERDICT_SHIFT
+                | (long) ((move + 1) & MOVE_MASK) << MOVE_SHIFT
+                | search << SEARCH_SHIFT;
+    }
+
+    private static long searchOf(long entry) {
+        return (entry >>> SEARCH_SHIFT) & SEARCH_MASK;
+    }
+
+    /*
+     * Put an entry in a key's bucket: over the key's own slot if it has one (and
+     * replace is set, or the slot belongs to an earlier search), else in an
+     * empty slot, else over the slot of the oldest search, then of the smallest
+     * depth. Searches are as old as they are behind the current one.
+     */
+    private boolean put(long key, long entry, boolean replace) {
+        key = key == 0 ? 1 : key;
+        long bucket = (key ^ (key >>> 32)) & this.bucketMask;
+        ByteBuffer segment = this.segments[(int) (bucket >>> (SEGMENT_SHIFT - BUCKET_SHIFT))];
+        int base = (int) ((bucket << BUCKET_SHIFT) & SEGMENT_MASK);
+        long search = searchOf(entry);
+        long current = this.search;
+
+        int victim = -1;
+        long victimScore = Long.MAX_VALUE;
+        for (int i = 0; i < BUCKET_SLOTS; i += 1) {
+            int slot = base + i * SLOT_SIZE;
+            long old = (long) LONGS.get(segment, slot + Long.BYTES);
+            long check = (long) LONGS.get(segment, slot);
+            if (old == 0 && check == 0) {
+                this.write(segment, slot, key, entry);
+                return true;
+            }
+            if ((check ^ old) == key) {
+                boolean present = searchOf(old) == search;
+                if (replace || !present) {
+                    this.write(segment, slot, key, entry);
+                }
+                return !present;
+            }
+            /* Slots of the oldest searches go first, then the shallowest. */
+            long age = (current - searchOf(old)) & SEARCH_MASK;
+            long score = (SEARCH_MASK - age) << 32 | depth(old);
+            if (score < victimScore) {
+                victim = slot;
+                victimScore = score;
+            }
+        }
+        if (victim >= 0) {
+            this.write(segment, victim, key, entry);
+        }
+        return true;
+    }
+
+    /*
+     * Another thread may write the same slot at the same time. Either wins, or
+     * the slot ends up holding the key of one and the entry of the other, which
+     * matches neither key: a position is forgotten, as when it is replaced.
+     */
+    private void write(ByteBuffer segment, int slot, long key, long entry) {
+        LONGS.set(segment, slot + Long.BYTES, entry);
+        LONGS.set(segment, slot, key ^ entry);
+    }
+}
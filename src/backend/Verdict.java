@@ -0,0 +1,10 @@
+package backend;
+
+public enum Verdict {
+    /* A winning line was found. */
+    SOLVED,
+    /* The search was exhausted without finding a win. */
+    UNSOLVABLE,
+    /* A budget ran out before the search could decide. */
+    UNKNOWN
+}
@@ -0,0 +1,58 @@
+package backend;
+
+/* The estimated chance of winning after a move, with its 95% Wilson score interval. */
+public class WinEstimate {
+    private static final double Z = 1.96;
+
+    private final int move;
+    private final long samples;
+    private final long wins;
+
+    public WinEstimate(int move, long samples, long wins) {
+        this.move = move;
+        this.samples = samples;
+        this.wins = wins;
+    }
+
+    /* The move (see Move). */
+    public int getMove() {
+        return this.move;
+    }
+
+    public long getSamples() {
+        return this.samples;
+    }
+
+    public long getWins() {
+        return this.wins;
+    }
+
+    public double getProbability() {
+        return this.samples == 0 ? 0 : (double) this.wins / this.samples;
+    }
+
+    public double getLow() {
+        return this.samples == 0 ? 0 : this.center() - this.halfWidth();
+    }
+
+    public double getHigh() {
+        return this.samples == 0 ? 1 : this.center() + this.halfWidth();
+    }
+
+    private double center() {
+        double n = this.samples;
+        return (this.getProbability() + Z * Z / (2 * n)) / (1 + Z * Z / n);
+    }
+
+    private double halfWidth() {
+        double n = this.samples;
+        double p = this.getProbability();
+        return Z * Math.sqrt(p * (1 - p) / n + Z * Z / (4 * n * n)) / (1 + Z * Z / n);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %.1f%% (%.1f%% - %.1f%%) over %d samples", Move.toString(this.move),
+                100 * this.getProbability(), 100 * this.getLow(), 100 * this.getHigh(), this.samples);
+    }
+}
@@ -0,0 +1,272 @@
+package backend;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Estimates the chance of winning after each legal move of a position, from
+ * what the player can see. The solver knows where every card is, so it
+ * overstates what a player can win; instead, the cards the player has never
+ * seen (the hidden tableau cards, and the stock cards not drawn yet in the
+ * first pass) are shuffled among themselves into many sample positions that
+ * look the same, and the game after every candidate move is played out
+ * greedily on every sample. A playout is much cheaper than even a small solve,
+ * and unlike a solve it does not peek at the hidden cards of its sample. Being
+ * greedy, it plays worse than a careful player, so the odds it gives tend to be
+ * lower than a careful player's.
+ * Every move is played on the same samples, so that the difference between
+ * two moves is not drowned by the difference between their samples. Samples
+ * are numbered, and sample i of a position is always the same deal, so the
+ * estimate only grows more precise with time rather than changing.
+ */
+public class WinEstimator {
+    public static final long DEFAULT_MILLIS = 100;
+
+    /* The samples an estimate completes at least, so that its intervals are narrow enough to tell moves apart. */
+    public static final int MIN_SAMPLES = 32;
+
+    /* The most promising distinct moves that are estimated; the others are left out. */
+    private static final int MAX_CANDIDATES = 8;
+
+    /* The moves a playout may make before it is counted as lost. Greedy wins take well under 250. */
+    private static final int MAX_PLAYOUT_MOVES = 300;
+
+    /* How often a playout checks whether the estimate is over. */
+    private static final int CHECK_MOVES = 16;
+
+    private static final long SEEN_BYTES = 64L << 10;
+
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private final int threads;
+    private final ExecutorService pool;
+    private final ThreadLocal<Worker> workers;
+
+    public WinEstimator(int threads) {
+        this.threads = threads;
+        this.pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "odds");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.workers = ThreadLocal.withInitial(Worker::new);
+    }
+
+    /* Estimate a position in about millis, and at least MIN_SAMPLES samples. The board is not modified. */
+    public WinEstimate[] estimate(Board board, long millis) throws InterruptedException {
+        return this.estimate(board, millis, MIN_SAMPLES, () -> false);
+    }
+
+    /**
+     * Sample the position of a board on every thread until millis have passed
+     * and minSamples samples are complete, whichever is later; samples started
+     * after that are dropped halfway. Only the MAX_CANDIDATES most promising
+     * moves are estimated, and moves that lead to the same position count once.
+     * The board is not modified.
+     *
+     * @param cancelled stops the estimate early, leaving it with fewer samples.
+     * @return an estimate per candidate move, all over the same samples, most likely to win first.
+     */
+    public WinEstimate[] estimate(Board board, long millis, int minSamples, BooleanSupplier cancelled)
+            throws InterruptedException {
+        int[] moves = new int[Move.MAX_MOVES];
+        int count = this.workers.get().candidates(board, moves);
+        if (count == 0) {
+            return new WinEstimate[0];
+        }
+        Position position = new Position(board, Arrays.copyOf(moves, count), System.nanoTime() + millis * 1_000_000,
+                minSamples, cancelled);
+
+        List<Callable<long[]>> tasks = new ArrayList<>();
+        for (int i = 0; i < this.threads; i += 1) {
+            tasks.add(() -> this.workers.get().sample(position));
+        }
+        long samples = 0;
+        long[] wins = new long[count];
+        for (Future<long[]> future : this.pool.invokeAll(tasks)) {
+            long[] counts;
+            try {
+                counts = future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Estimate failed", e.getCause());
+            }
+            samples += counts[count];
+            for (int i = 0; i < count; i += 1) {
+                wins[i] += counts[i];
+            }
+        }
+
+        WinEstimate[] estimates = new WinEstimate[count];
+        for (int i = 0; i < count; i += 1) {
+            estimates[i] = new WinEstimate(position.moves[i], samples, wins[i]);
+        }
+        Arrays.sort(estimates, Comparator.comparingDouble(WinEstimate::getProbability).reversed());
+        return estimates;
+    }
+
+    public void shutdown() {
+        this.pool.shutdownNow();
+    }
+
+    /* A position to sample, shared by the threads of one estimate. */
+    private static class Position {
+        private final byte[] encoding;
+        private final int[] hidden;
+        private final int hiddenCount;
+        private final int[] moves;
+        private final long seed;
+        private final long deadline;
+        private final int minSamples;
+        private final BooleanSupplier cancelled;
+
+        /* The number of the next sample, claimed by the threads in turn. */
+        private final AtomicLong next;
+
+        Position(Board board, int[] moves, long deadline, int minSamples, BooleanSupplier cancelled) {
+            this.encoding = new byte[BoardState.MAX_SIZE];
+            BoardState.encode(board, this.encoding, 0);
+            this.hidden = new int[Board.DECK_SIZE];
+            this.hiddenCount = BoardState.hiddenOffsets(this.encoding, 0, this.hidden);
+            this.moves = moves;
+            this.seed = board.positionHash();
+            this.deadline = deadline;
+            this.minSamples = minSamples;
+            this.cancelled = cancelled;
+            this.next = new AtomicLong();
+        }
+
+        /* Whether sample i must stop: the estimate was cancelled, or it is over and has enough samples. */
+        boolean isOver(long i) {
+            return this.cancelled.getAsBoolean() || (i >= this.minSamples && System.nanoTime() - this.deadline >= 0);
+        }
+    }
+
+    /* The reusable state of one thread. */
+    private static class Worker {
+        private final GreedyPolicy policy;
+        private final Board board;
+        private final Board sample;
+        private final byte[] encoding;
+        private final int[] moves;
+        private final long[] positions;
+        private final boolean[] won;
+
+        Worker() {
+            this.policy = new GreedyPolicy(SEEN_BYTES);
+            this.board = Board.empty();
+            this.sample = Board.empty();
+            this.encoding = new byte[BoardState.MAX_SIZE];
+            this.moves = new int[Move.MAX_MOVES];
+            this.positions = new long[MAX_CANDIDATES];
+            this.won = new boolean[MAX_CANDIDATES];
+        }
+
+        /**
+         * Write into dest the moves of a board worth estimating: the most promising
+         * first, as the greedy policy ranks them, skipping moves that lead to the
+         * same position as an earlier one, up to MAX_CANDIDATES.
+         *
+         * @return the number of moves written.
+         */
+        int candidates(Board board, int[] dest) {
+            this.board.copyFrom(board);
+            int count = this.board.generateMoves(dest);
+            this.policy.rank(this.board, dest, count);
+            int kept = 0;
+            for (int i = 0; i < count && kept < MAX_CANDIDATES; i += 1) {
+                this.board.apply(dest[i]);
+                long position = this.board.canonicalHash();
+                this.board.undo();
+                boolean seen = false;
+                for (int j = 0; j < kept && !seen; j += 1) {
+                    seen = this.positions[j] == position;
+                }
+                if (!seen) {
+                    this.positions[kept] = position;
+                    dest[kept] = dest[i];
+                    kept += 1;
+                }
+            }
+            return kept;
+        }
+
+        /**
+         * Claim and play samples of a position until it is over. A sample counts
+         * only once every move was played out on it.
+         *
+         * @return the wins per move, followed by the number of samples played.
+         */
+        long[] sample(Position position) {
+            int count = position.moves.length;
+            long[] counts = new long[count + 1];
+            while (true) {
+                long i = position.next.getAndIncrement();
+                /* Without hidden cards every sample is the same deal. */
+                if ((i > 0 && position.hiddenCount == 0) || position.isOver(i)) {
+                    break;
+                }
+                this.determinize(position, i);
+                boolean complete = true;
+                for (int j = 0; j < count && complete; j += 1) {
+                    this.board.copyFrom(this.sample);
+                    int result = this.board.apply(position.moves[j]) ? this.play(this.board, position, i) : 0;
+                    complete = result >= 0;
+                    this.won[j] = result > 0;
+                }
+                if (!complete) {
+                    break;
+                }
+                for (int j = 0; j < count; j += 1) {
+                    counts[j] += this.won[j] ? 1 : 0;
+                }
+                counts[count] += 1;
+            }
+            return counts;
+        }
+
+        /* Decode sample i of a position into the sample board: its hidden cards shuffled by a Fisher-Yates pass seeded by i. */
+        private void determinize(Position position, long i) {
+            System.arraycopy(position.encoding, 0, this.encoding, 0, this.encoding.length);
+            SplittableRandom random = new SplittableRandom(position.seed + i * GOLDEN_GAMMA);
+            int[] hidden = position.hidden;
+            for (int j = position.hiddenCount - 1; j > 0; j -= 1) {
+                int k = random.nextInt(j + 1);
+                byte card = this.encoding[hidden[j]];
+                this.encoding[hidden[j]] = this.encoding[hidden[k]];
+                this.encoding[hidden[k]] = card;
+            }
+            BoardState.decode(this.encoding, 0, this.sample);
+        }
+
+        /**
+         * Play a board out with the greedy policy, as sample i of a position.
+         *
+         * @return 1 if the policy wins, 0 if it does not, or -1 if the position
+         *         was over before the playout was.
+         */
+        private int play(Board board, Position position, long i) {
+            this.policy.start(board);
+            for (int played = 0; played < MAX_PLAYOUT_MOVES && !board.isWon(); played += 1) {
+                if (played % CHECK_MOVES == CHECK_MOVES - 1 && position.isOver(i)) {
+                    return -1;
+                }
+                int count = board.generateMoves(this.moves);
+                int move = count == 0 ? -1 : this.policy.choose(board, this.moves, count);
+                if (move < 0 || !board.apply(move)) {
+                    break;
+                }
+            }
+            return board.isWon() ? 1 : 0;
+        }
+    }
+}
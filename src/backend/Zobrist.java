@@ -0,0 +1,78 @@
+package backend;
+
+import backend.Card.Card;
+
+/**
+ * Zobrist keys for the features of a position. A position hash is the XOR of
+ * the keys of all its features, so every move updates it in O(1) by XOR-ing out
+ * the features it removes and XOR-ing in the ones it adds.
+ * Keys are derived from the feature by a mixing function rather than looked up,
+ * which keeps the large tableau feature space out of memory.
+ * The stock is hashed as its first card plus the pairs of consecutive cards, so
+ * that drawing from the head or appending at the tail touches O(1) features.
+ */
+final class Zobrist {
+    private static final int TABLEAU = 1;
+    private static final int STOCK_HEAD = 2;
+    private static final int STOCK_PAIR = 3;
+    private static final int STOCK_REMAINING = 4;
+    private static final int WASTE = 5;
+    private static final int FOUNDATION = 6;
+    private static final int FOUNDATION_CARD = 7;
+    private static final int COLUMN = 8;
+
+    private static final long SEED = 0x5DEECE66DL;
+
+    private Zobrist() {
+    }
+
+    /* The key of a card at a depth of a column, whichever column it is. */
+    static long tableau(int depth, Card card, boolean hidden) {
+        return key(TABLEAU, 0, depth, card.ordinal() | (hidden ? 0x40 : 0));
+    }
+
+    /*
+     * The key of a whole column from the hash of its cards. The XOR of the card
+     * keys alone would not tell which column a card is in, so every column hash
+     * is mixed before columns are combined.
+     */
+    static long column(long cards) {
+        return DealGenerator.mix(cards + COLUMN * 0x9E3779B97F4A7C15L);
+    }
+
+    /* The key of a column from the hash of its cards and its index in the tableau. */
+    static long column(int index, long cards) {
+        return DealGenerator.mix(cards + (COLUMN << 24 | index) * 0x9E3779B97F4A7C15L);
+    }
+
+    static long stockHead(Card card) {
+        return key(STOCK_HEAD, 0, 0, card.ordinal());
+    }
+
+    static long stockPair(Card first, Card second) {
+        return key(STOCK_PAIR, 0, first.ordinal(), second.ordinal());
+    }
+
+    static long stockRemaining(int remaining) {
+        return key(STOCK_REMAINING, 0, 0, remaining);
+    }
+
+    /* The key of a waste slot, or 0 for an empty slot. */
+    static long waste(int slot, Card card) {
+        return card == null ? 0 : key(WASTE, 0, slot, card.ordinal());
+    }
+
+    /* The key of a foundation slot, or 0 for an empty slot. */
+    static long foundation(int slot, Card card) {
+        return card == null ? 0 : key(FOUNDATION, 0, slot, card.ordinal());
+    }
+
+    /* The key of a foundation top card, whatever slot it is in, or 0 for an empty slot. */
+    static long foundation(Card card) {
+        return card == null ? 0 : key(FOUNDATION_CARD, 0, 0, card.ordinal());
+    }
+
+    private static long key(int kind, int a, int b, int c) {
+        return DealGenerator.mix(SEED + (kind << 24 | a << 16 | b << 8 | c) * 0x9E3779B97F4A7C15L);
+    }
+}
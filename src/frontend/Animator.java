@@ -0,0 +1,212 @@
+package frontend;
+
+import backend.Card.Card;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+
+import static backend.Board.DECK_SIZE;
+
+/**
+ * Flies cards across the table on a fixed-rate Swing timer.
+ * Positions are interpolated from the time elapsed since a flight started,
+ * so a late or dropped frame does not slow the animation down. Flights are
+ * kept in primitive arrays indexed by slot, and every frame repaints only where
+ * the cards in flight were and are, so a frame allocates nothing.
+ * Every frame also records how long it took against the frame budget, so that
+ * dropped frames can be told apart from slow paints.
+ */
+class Animator {
+    /* How long a card takes to fly to its pile. */
+    private static final long FLIGHT_NANOS = 200_000_000L;
+
+    private final JComponent component;
+    private final Layout layout;
+    private final Runnable landed;
+    private final Timer timer;
+
+    /* Flights, one per slot in [0, count). */
+    private final Card[] cards;
+    private final double[] fromX;
+    private final double[] fromY;
+    private final double[] toX;
+    private final double[] toY;
+    private final long[] starts;
+
+    /* Where every card was at the last frame. */
+    private final double[] x;
+    private final double[] y;
+    private int count;
+
+    /* The slot of every card in flight, indexed by ordinal, or -1. */
+    private final int[] slots;
+
+    /* Reused for the damage of every frame. */
+    private final Rectangle damage;
+
+    private long frameNanos;
+    private long lastTick;
+    private long frames;
+    private long droppedFrames;
+    private long slowPaints;
+
+    /* Calls landed on the EDT whenever cards arrive on their piles. */
+    Animator(JComponent component, Layout layout, Runnable landed) {
+        this.component = component;
+        this.layout = layout;
+        this.landed = landed;
+        this.timer = new Timer(0, e -> this.tick());
+        this.cards = new Card[DECK_SIZE];
+        this.fromX = new double[DECK_SIZE];
+        this.fromY = new double[DECK_SIZE];
+        this.toX = new double[DECK_SIZE];
+        this.toY = new double[DECK_SIZE];
+        this.starts = new long[DECK_SIZE];
+        this.x = new double[DECK_SIZE];
+        this.y = new double[DECK_SIZE];
+        this.slots = new int[Card.COUNT];
+        Arrays.fill(this.slots, -1);
+        this.damage = new Rectangle();
+        this.setFrameMillis(1000 / 60);
+    }
+
+    /* Set the frame period, normally the refresh period of the display. */
+    void setFrameMillis(int frameMillis) {
+        this.frameNanos = frameMillis * 1_000_000L;
+        this.timer.setDelay(frameMillis);
+        this.timer.setInitialDelay(0);
+    }
+
+    boolean isRunning() {
+        return this.count != 0;
+    }
+
+    boolean isFlying(Card card) {
+        return card != null && this.slots[card.ordinal()] >= 0;
+    }
+
+    /*
+     * Fly a card from one position to another. A card already in flight turns
+     * around from wherever it is.
+     */
+    void fly(Card card, double fromX, double fromY, double toX, double toY) {
+        long now = System.nanoTime();
+        int slot = this.slots[card.ordinal()];
+        if (slot < 0) {
+            slot = this.count;
+            this.count += 1;
+            this.cards[slot] = card;
+            this.slots[card.ordinal()] = slot;
+            this.x[slot] = fromX;
+            this.y[slot] = fromY;
+        } else {
+            fromX = this.x[slot];
+            fromY = this.y[slot];
+        }
+        this.fromX[slot] = fromX;
+        this.fromY[slot] = fromY;
+        this.toX[slot] = toX;
+        this.toY[slot] = toY;
+        this.starts[slot] = now;
+        if (!this.timer.isRunning()) {
+            this.lastTick = now;
+            this.timer.start();
+        }
+    }
+
+    /* Draw every card in flight where the last frame put it. */
+    void draw(Graphics2D g2d, CardSprites sprites) {
+        for (int i = 0; i < this.count; i += 1) {
+            sprites.drawCard(g2d, this.cards[i], this.x[i], this.y[i]);
+        }
+    }
+
+    /* Record how long painting a frame took. */
+    void paintFinished(long nanos) {
+        if (nanos > this.frameNanos) {
+            this.slowPaints += 1;
+        }
+    }
+
+    long getFrames() {
+        return this.frames;
+    }
+
+    /* Frames that started more than one frame period late. */
+    long getDroppedFrames() {
+        return this.droppedFrames;
+    }
+
+    /* Frames that took longer than one frame period to paint. */
+    long getSlowPaints() {
+        return this.slowPaints;
+    }
+
+    /*
+     * Repaint where every card was and where it is now, and retire the cards that
+     * have arrived.
+     */
+    private void tick() {
+        long now = System.nanoTime();
+        this.frames += 1;
+        if (now - this.lastTick > 2 * this.frameNanos) {
+            this.droppedFrames += (now - this.lastTick) / this.frameNanos - 1;
+        }
+        this.lastTick = now;
+
+        Rectangle damage = this.damage;
+        damage.setBounds(0, 0, 0, 0);
+        boolean arrived = false;
+        int i = 0;
+        while (i < this.count) {
+            double t = this.progress(i, now);
+            this.layout.addCardBounds(this.x[i], this.y[i], damage);
+            this.x[i] = this.interpolate(this.fromX[i], this.toX[i], t);
+            this.y[i] = this.interpolate(this.fromY[i], this.toY[i], t);
+            this.layout.addCardBounds(this.x[i], this.y[i], damage);
+            if (t < 1) {
+                i += 1;
+                continue;
+            }
+            // Move the last flight into this slot.
+            arrived = true;
+            this.slots[this.cards[i].ordinal()] = -1;
+            this.count -= 1;
+            if (i != this.count) {
+                this.moveSlot(this.count, i);
+            }
+            this.cards[this.count] = null;
+        }
+        if (this.count == 0) {
+            this.timer.stop();
+        }
+        if (arrived) {
+            this.landed.run();
+        }
+        this.component.repaint(damage.x, damage.y, damage.width, damage.height);
+    }
+
+    private void moveSlot(int from, int to) {
+        this.cards[to] = this.cards[from];
+        this.fromX[to] = this.fromX[from];
+        this.fromY[to] = this.fromY[from];
+        this.toX[to] = this.toX[from];
+        this.toY[to] = this.toY[from];
+        this.starts[to] = this.starts[from];
+        this.x[to] = this.x[from];
+        this.y[to] = this.y[from];
+        this.slots[this.cards[to].ordinal()] = to;
+    }
+
+    /* How far a flight has gone, from 0 to 1. */
+    private double progress(int slot, long now) {
+        return Math.min(1, (double) (now - this.starts[slot]) / FLIGHT_NANOS);
+    }
+
+    /* Ease out: cards slow down as they land. */
+    private double interpolate(double from, double to, double t) {
+        double eased = 1 - (1 - t) * (1 - t);
+        return from + (to - from) * eased;
+    }
+}
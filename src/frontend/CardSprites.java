@@ -0,0 +1,130 @@
+package frontend;
+
+import backend.Card.Card;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Card images rasterized once per card size: the 52 faces, the back and the
+ * placeholder. Painting a card is then a single image copy instead of two
+ * fills, an outline and a string.
+ * The images are created compatible with the device they are painted on, so
+ * Java2D can keep them in video memory, and they hold device pixels so that
+ * scaled displays stay sharp. They are rebuilt when the card size, the device
+ * or its scale changes.
+ */
+class CardSprites {
+    private final BufferedImage[] faces;
+    private BufferedImage back;
+    private BufferedImage placeholder;
+
+    /* The card size the sprites are drawn for, in user space. */
+    private double cardWidth;
+    private double cardHeight;
+
+    /* The sprite size in user space, which includes the outline. */
+    private int width;
+    private int height;
+
+    private GraphicsConfiguration configuration;
+    private double scale;
+    private boolean valid;
+
+    CardSprites() {
+        this.faces = new BufferedImage[Card.COUNT];
+    }
+
+    /* Set the card size. The sprites are rebuilt on the next validate. */
+    void setCardSize(double cardWidth, double cardHeight) {
+        if (cardWidth != this.cardWidth || cardHeight != this.cardHeight) {
+            this.cardWidth = cardWidth;
+            this.cardHeight = cardHeight;
+            this.valid = false;
+        }
+    }
+
+    /*
+     * Rebuild the sprites if they were not drawn for the device of g2d. A change of
+     * display scale comes with a new device configuration.
+     */
+    void validate(Graphics2D g2d) {
+        GraphicsConfiguration configuration = g2d.getDeviceConfiguration();
+        if (this.valid && configuration == this.configuration) {
+            return;
+        }
+        this.configuration = configuration;
+        this.scale = configuration.getDefaultTransform().getScaleX();
+        this.valid = true;
+
+        this.width = (int) Math.ceil(this.cardWidth) + 1;
+        this.height = (int) Math.ceil(this.cardHeight) + 1;
+        Rectangle2D r = new Rectangle2D.Double(0, 0, this.cardWidth, this.cardHeight);
+        for (int i = 0; i < this.faces.length; i += 1) {
+            Card card = Card.of(i);
+            this.faces[i] = this.render(g -> Utils.drawCard(g, r, card));
+        }
+        this.back = this.render(g -> Utils.drawCard(g, r, null));
+        this.placeholder = this.render(g -> Utils.drawPlaceholder(g, r));
+    }
+
+    /* The display scale the sprites were drawn for. */
+    double getScale() {
+        return this.scale;
+    }
+
+    void drawPlaceholder(Graphics2D g2d, double x, double y) {
+        this.draw(g2d, this.placeholder, x, y);
+    }
+
+    /* Draw a face, or the back for a hidden card. */
+    void drawCard(Graphics2D g2d, Card card, double x, double y) {
+        this.draw(g2d, card == null ? this.back : this.faces[card.ordinal()], x, y);
+    }
+
+    /*
+     * Draw only the top of a card that the next card in its column covers. Copying
+     * just the visible strip saves filling the rest of the card only to paint over it.
+     */
+    void drawCardTop(Graphics2D g2d, Card card, double x, double y, double visibleHeight) {
+        BufferedImage image = card == null ? this.back : this.faces[card.ordinal()];
+        int height = Math.min(this.height, (int) Math.ceil(visibleHeight) + 1);
+        int left = (int) Math.round(x);
+        int top = (int) Math.round(y);
+        int sourceHeight = Math.min(image.getHeight(), (int) Math.ceil(height * this.scale));
+        g2d.drawImage(image, left, top, left + this.width, top + height, 0, 0, image.getWidth(), sourceHeight, null);
+    }
+
+    private void draw(Graphics2D g2d, BufferedImage image, double x, double y) {
+        int left = (int) Math.round(x);
+        int top = (int) Math.round(y);
+        if (this.scale == 1) {
+            g2d.drawImage(image, left, top, null);
+        } else {
+            g2d.drawImage(image, left, top, this.width, this.height, null);
+        }
+    }
+
+    private BufferedImage render(Painter painter) {
+        int pixelWidth = Math.max(1, (int) Math.ceil(this.width * this.scale));
+        int pixelHeight = Math.max(1, (int) Math.ceil(this.height * this.scale));
+        BufferedImage image = this.configuration.createCompatibleImage(pixelWidth, pixelHeight,
+                Transparency.OPAQUE);
+        Graphics2D g = image.createGraphics();
+        try {
+            // The outline can leave a sliver of the last row and column uncovered.
+            g.setColor(Utils.BACKGROUND_COLOR);
+            g.fillRect(0, 0, pixelWidth, pixelHeight);
+            g.scale(this.scale, this.scale);
+            painter.paint(g);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private interface Painter {
+        void paint(Graphics2D g2d);
+    }
+}
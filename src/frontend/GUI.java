@@ -2,156 +2,289 @@ package frontend;
 
 import backend.Board;
 import backend.Card.Card;
-import backend.Card.CardType;
+import backend.Card.CardValue;
+import backend.Hint;
+import backend.HintEngine;
+import backend.Move;
+import backend.Pile;
+import backend.StatsRecorder;
+import backend.Verdict;
+import metrics.BoardOperation;
+import metrics.FrameEvent;
+import metrics.Metrics;
+import metrics.MoveEvent;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
 
+import static backend.Board.DECK_SIZE;
+import static backend.Board.FOUNDATION_SIZE;
 import static backend.Board.TABLEAU_SIZE;
 import static backend.Board.WASTE_SIZE;
 import static frontend.Utils.BACKGROUND_COLOR;
-import static frontend.Utils.drawCard;
-import static frontend.Utils.drawPlaceholder;
+import static frontend.Utils.HINT_COLOR;
+import static frontend.Utils.LOSING_HINT_COLOR;
+import static frontend.Utils.WINNING_HINT_COLOR;
 
 public class GUI extends JPanel implements Runnable {
-    private Board board;
+    /* Used when the display does not report its refresh rate. */
+    private static final int DEFAULT_REFRESH_RATE = 60;
+
+    /* How often auto-complete sends another card to the foundation. */
+    private static final int AUTO_PLAY_MILLIS = 80;
 
-    private Rectangle2D stock;
-    private Rectangle2D[] waste;
-    private Rectangle2D[] foundation;
-    private Rectangle2D[] tableauBase;
-    private Rectangle2D[][] tableau;
+    private Board board;
 
-    private double cardHeight;
-    private double cardWidth;
-    private double marginHeight;
-    private double marginWidth;
+    private Layout layout;
 
     private SelectedCard selectedCard;
 
+    /* Where the pointer dragging the selected card is, and where it was last painted. */
+    private double dragX;
+    private double dragY;
+    private double shownX;
+    private double shownY;
+
+    /* Paints the dragged card at most once per display refresh. */
+    private Timer frameTimer;
+
+    /* Reused on every paint to read tableau columns without allocating. */
+    private Card[] columnBuffer;
+
+    private CardSprites sprites;
+
+    private Animator animator;
+
+    /*
+     * The table without the cards in flight, painted under them while an
+     * animation runs. Redrawn only when the board or the flights change.
+     */
+    private BufferedImage background;
+    private boolean backgroundValid;
+
+    /* Plays foundation moves once no card is hidden. */
+    private Timer autoPlayTimer;
+    private int autoPlayDraws;
+    private int[] moves;
+
+    /* Searches every position in the background; the hint shown, if any, outlines its two piles. */
+    private HintEngine hints;
+    private Hint hint;
+    private double[] hintX;
+    private double[] hintY;
+    private Stroke hintStroke;
+
+    /* Reused for the damage of every board change, hint and drag frame, and for the bounds of one hinted card. */
+    private Rectangle damage;
+    private Rectangle hintBounds;
+
+    private MetricsOverlay overlay;
+    private OddsOverlay odds;
+    private StatsOverlay stats;
+
+    /* Picks the deal of every new game. */
+    private LongSupplier newDeal;
+
+    /* When the oldest input not yet shown by a paint arrived, or 0, and when the dragged card was last shown. */
+    private long inputNanos;
+    private long dragFrameNanos;
+
     public GUI(Board board) {
+        this(board, () -> ThreadLocalRandom.current().nextLong(), null);
+    }
+
+    /* Show a board, dealing new games from newDeal and showing the stats of recorder, if not null. */
+    public GUI(Board board, LongSupplier newDeal, StatsRecorder recorder) {
         this.board = board;
+        this.newDeal = newDeal;
 
-        this.waste = new Rectangle2D[WASTE_SIZE];
-        this.foundation = new Rectangle2D[CardType.values().length];
-        this.tableauBase = new Rectangle2D[TABLEAU_SIZE];
-        this.tableau = new Rectangle2D[TABLEAU_SIZE][];
+        this.layout = new Layout();
+        this.layout.update(board);
+        this.columnBuffer = new Card[DECK_SIZE];
+        this.sprites = new CardSprites();
+        this.frameTimer = new Timer(0, e -> this.showDrag());
+        this.frameTimer.setRepeats(false);
+        this.animator = new Animator(this, this.layout, this::invalidateBackground);
+        this.overlay = new MetricsOverlay(this, this.animator);
+        this.odds = new OddsOverlay(this);
+        this.stats = new StatsOverlay(this, recorder);
+        this.autoPlayTimer = new Timer(AUTO_PLAY_MILLIS, e -> this.autoPlay());
+        this.moves = new int[Move.MAX_MOVES];
+        this.hints = new HintEngine();
+        this.hintX = new double[2];
+        this.hintY = new double[2];
+        this.hintStroke = new BasicStroke(3);
+        this.damage = new Rectangle();
+        this.hintBounds = new Rectangle();
+        this.setBackground(BACKGROUND_COLOR);
+        board.addListener(this::boardChanged);
+        this.hints.search(board);
 
         this.addComponentListener(new ComponentAdapter() {
             @Override
             public void componentResized(ComponentEvent e) {
-                // Recalculate card dimensions and margins based on eyeball heuristics.
-                cardHeight = getHeight() / 7.5;
-                cardWidth = getWidth() / 11.0;
-                marginHeight = cardHeight / 4;
-                marginWidth = cardWidth / 3;
-
-                // Recalculate position of stock.
-                double x = marginWidth;
-                double y = marginHeight;
-                stock = new Rectangle2D.Double(x, y, cardWidth, cardHeight);
-
-                // Recalculate position of waste cards.
-                x += cardWidth + marginWidth;
-                double deltaX = 0;
-                for (int i = 0; i < waste.length; i += 1) {
-                    waste[i] = new Rectangle2D.Double(x + deltaX, y, cardWidth, cardHeight);
-                    deltaX += 1.5 * marginWidth;
-                }
-
-                // Recalculate position of foundation cards.
-                x += 3 * (cardWidth + marginWidth);
-                deltaX = 0;
-                for (int i = 0; i < foundation.length; i += 1) {
-                    foundation[i] = new Rectangle2D.Double(x + deltaX, y, cardWidth, cardHeight);
-                    deltaX += cardWidth + marginWidth;
-                }
-
-                // Recalculate position of tableau column bases.
-                x = cardWidth + 2 * marginWidth;
-                y = cardHeight + 2 * marginHeight;
-                deltaX = 0;
-                for (int i = 0; i < tableauBase.length; i += 1) {
-                    tableauBase[i] = new Rectangle2D.Double(x + deltaX, y, cardWidth, cardHeight);
-                    deltaX += cardWidth + marginWidth;
-                }
+                hint = null;
+                layout.resize(getWidth(), getHeight());
+                overlay.layOut();
+                odds.layOut();
+                stats.layOut();
+                sprites.setCardSize(layout.getCardWidth(), layout.getCardHeight());
+                invalidateBackground();
+                repaint();
             }
         });
         this.addMouseListener(new MouseAdapter() {
             @Override
             public void mousePressed(MouseEvent e) {
-                Point point = e.getPoint();
-                if (stock.contains(point)) {
-                    board.iterateStock();
+                double x = e.getX();
+                double y = e.getY();
+                inputArrived();
+                autoPlayTimer.stop();
+                if (layout.isOnStock(x, y)) {
+                    perform(BoardOperation.STOCK, Move.of(Move.STOCK, 0, 0));
+                    startAutoPlay();
                     return;
                 }
-                for (int i = waste.length - 1; i >= 0; i -= 1) {
-                    Rectangle2D r = waste[i];
-                    if (r.contains(point) && board.getWasteCard(i) != null) {
-                        double offsetX = point.getX() - r.getX();
-                        double offsetY = point.getY() - r.getY();
-                        selectedCard = new SelectedCard(Location.WASTE, i, offsetX, offsetY);
-                        return;
-                    }
+                int i = layout.wasteAt(x, y);
+                if (i >= 0) {
+                    double offsetX = x - layout.getWasteX(i);
+                    double offsetY = y - layout.getTopY();
+                    select(new SelectedCard(Location.WASTE, i, offsetX, offsetY), x, y);
+                    return;
                 }
-                for (int i = 0; i < tableau.length; i += 1) {
-                    Rectangle2D[] column = tableau[i];
-                    if (column.length != 0) {
-                        Rectangle2D r = column[column.length - 1];
-                        if (r.contains(point)) {
-                            double offsetX = point.getX() - r.getX();
-                            double offsetY = point.getY() - r.getY();
-                            selectedCard = new SelectedCard(Location.TABLEAU, i, offsetX, offsetY);
-                            return;
-                        }
-                    }
+                i = layout.topAt(x, y);
+                int size = i >= 0 ? board.getTableauSize(i) : 0;
+                if (size != 0) {
+                    double offsetX = x - layout.getColumnX(i);
+                    double offsetY = y - layout.getCardY(size - 1);
+                    select(new SelectedCard(Location.TABLEAU, i, offsetX, offsetY), x, y);
+                    return;
                 }
+                // Nothing was hit, so there is nothing to show.
+                inputNanos = 0;
             }
 
             @Override
             public void mouseReleased(MouseEvent e) {
                 if (selectedCard != null) {
-                    Point point = e.getPoint();
-                    for (int i = 0; i < foundation.length; i += 1) {
-                        if (foundation[i].contains(point)) {
-                            if (selectedCard.getLocation() == Location.WASTE) {
-                                board.moveFromWasteToFoundation(selectedCard.getIndex(), i);
-                            } else {
-                                board.moveFromTableauToFoundation(selectedCard.getIndex(), i);
-                            }
-                        }
+                    double x = e.getX();
+                    double y = e.getY();
+                    inputArrived();
+                    boolean fromWaste = selectedCard.getLocation() == Location.WASTE;
+                    int from = selectedCard.getIndex();
+                    int move = -1;
+                    int i = layout.foundationAt(x, y);
+                    if (i >= 0) {
+                        move = Move.of(fromWaste ? Move.WASTE_TO_FOUNDATION : Move.TABLEAU_TO_FOUNDATION, from, i);
                     }
-                    for (int i = 0; i < tableau.length; i += 1) {
-                        Rectangle2D[] column = tableau[i];
-                        Rectangle2D r;
-                        if (column == null || column.length == 0) {
-                            r = tableauBase[i];
-                        } else {
-                            r = column[column.length - 1];
-                        }
-                        if (r.contains(point)) {
-                            if (selectedCard.getLocation() == Location.WASTE) {
-                                board.moveFromWasteToTableau(selectedCard.getIndex(), i);
-                            } else {
-                                board.moveFromTableauToTableau(selectedCard.getIndex(), i);
-                            }
-                        }
+                    i = layout.topAt(x, y);
+                    if (i >= 0) {
+                        move = Move.of(fromWaste ? Move.WASTE_TO_TABLEAU : Move.TABLEAU_TO_TABLEAU, from, i);
+                    }
+
+                    // The card lands from where it was dropped, on its new pile or back on its old one.
+                    double dropX = x - selectedCard.getOffsetX();
+                    double dropY = y - selectedCard.getOffsetY();
+                    clearSelection();
+                    if (move >= 0 && perform(BoardOperation.APPLY, move)) {
+                        animateMove(move, false, dropX, dropY);
+                        startAutoPlay();
+                    } else if (fromWaste) {
+                        animator.fly(board.getWasteCard(from), dropX, dropY, layout.getWasteX(from), layout.getTopY());
+                    } else {
+                        int j = board.getTableauSize(from) - 1;
+                        animator.fly(board.getTableauCard(from, j), dropX, dropY, layout.getColumnX(from),
+                                layout.getCardY(j));
                     }
-                    selectedCard = null;
                 }
-                repaint();
             }
         });
         this.addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent e) {
                 if (selectedCard != null) {
-                    repaint();
+                    dragX = e.getX();
+                    dragY = e.getY();
+                    inputArrived();
+                    if (!frameTimer.isRunning()) {
+                        frameTimer.start();
+                    }
                 }
             }
         });
+
+        // Ctrl+Z takes back the last move, Ctrl+Y plays it again, H shows a hint, O toggles the odds,
+        // S toggles the stats and N deals a new game.
+        InputMap inputMap = this.getInputMap(WHEN_IN_FOCUSED_WINDOW);
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, InputEvent.CTRL_DOWN_MASK), "undo");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, InputEvent.CTRL_DOWN_MASK), "redo");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_H, 0), "hint");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_O, 0), "odds");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_S, 0), "stats");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_N, 0), "new game");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "metrics");
+        this.getActionMap().put("undo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                clearSelection();
+                autoPlayTimer.stop();
+                inputArrived();
+                if (perform(BoardOperation.UNDO, -1)) {
+                    animateMove(board.getMove(board.getMoveCount()), true);
+                } else {
+                    inputNanos = 0;
+                }
+            }
+        });
+        this.getActionMap().put("redo", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                clearSelection();
+                autoPlayTimer.stop();
+                inputArrived();
+                if (perform(BoardOperation.REDO, -1)) {
+                    animateMove(board.getMove(board.getMoveCount() - 1), false);
+                } else {
+                    inputNanos = 0;
+                }
+            }
+        });
+        this.getActionMap().put("hint", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                showHint();
+            }
+        });
+        this.getActionMap().put("odds", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                odds.toggle(board);
+            }
+        });
+        this.getActionMap().put("stats", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                stats.toggle();
+            }
+        });
+        this.getActionMap().put("new game", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                clearSelection();
+                autoPlayTimer.stop();
+                board.deal(newDeal.getAsLong());
+            }
+        });
+        this.getActionMap().put("metrics", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                overlay.toggle();
+            }
+        });
     }
 
     @Override
@@ -166,13 +299,356 @@ public class GUI extends JPanel implements Runnable {
 
     @Override
     public void paint(Graphics g) {
+        FrameEvent event = new FrameEvent();
+        event.begin();
+        long start = System.nanoTime();
         Graphics2D g2d = (Graphics2D) g;
-        this.setBackground(BACKGROUND_COLOR);
-        this.drawStock(g2d);
-        this.drawWaste(g2d);
-        this.drawFoundation(g2d);
-        this.drawTableau(g2d);
-        this.drawSelectedCards(g2d);
+        this.sprites.validate(g2d);
+        Rectangle clip = g2d.getClipBounds();
+        boolean animated = this.animator.isRunning();
+
+        if (animated) {
+            this.drawBackground(g2d);
+            this.drawHint(g2d);
+            this.animator.draw(g2d, this.sprites);
+            this.drawSelectedCards(g2d);
+            this.overlay.draw(g2d);
+            this.odds.draw(g2d);
+            this.stats.draw(g2d);
+            this.animator.paintFinished(System.nanoTime() - start);
+        } else {
+            // Only the damaged region is painted, so clear it first.
+            g2d.setColor(this.getBackground());
+            if (clip == null) {
+                g2d.fillRect(0, 0, this.getWidth(), this.getHeight());
+            } else {
+                g2d.fillRect(clip.x, clip.y, clip.width, clip.height);
+            }
+
+            this.drawStock(g2d);
+            this.drawWaste(g2d);
+            this.drawFoundation(g2d);
+            this.drawTableau(g2d);
+            this.drawHint(g2d);
+            this.drawSelectedCards(g2d);
+            this.overlay.draw(g2d);
+            this.odds.draw(g2d);
+            this.stats.draw(g2d);
+        }
+
+        if (Metrics.ENABLED) {
+            long end = System.nanoTime();
+            Metrics.PAINT_NANOS.record(end - start);
+            if (this.inputNanos != 0) {
+                Metrics.INPUT_TO_FRAME_NANOS.record(end - this.inputNanos);
+                this.inputNanos = 0;
+            }
+        }
+        event.finish(animated, clip == null ? this.getWidth() : clip.width,
+                clip == null ? this.getHeight() : clip.height);
+    }
+
+    /* Note an input event that will change what is on screen, unless an earlier one is still not shown. */
+    private void inputArrived() {
+        if (Metrics.ENABLED) {
+            Metrics.INPUT_EVENTS.increment();
+            if (this.inputNanos == 0) {
+                this.inputNanos = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * Play a move, take one back or play one again (the move is ignored for those),
+     * timing the operation and reporting it to JFR.
+     *
+     * @return whether the board changed.
+     */
+    private boolean perform(BoardOperation operation, int move) {
+        MoveEvent event = new MoveEvent();
+        event.begin();
+        long start = Metrics.start();
+        boolean changed;
+        switch (operation) {
+            case UNDO:
+                changed = this.board.undo();
+                move = changed ? this.board.getMove(this.board.getMoveCount()) : -1;
+                break;
+            case REDO:
+                changed = this.board.redo();
+                move = changed ? this.board.getMove(this.board.getMoveCount() - 1) : -1;
+                break;
+            default:
+                changed = this.board.apply(move);
+                break;
+        }
+        Metrics.record(operation.getNanos(), start);
+        event.finish(operation, move < 0 ? -1 : Move.kind(move), move < 0 ? -1 : Move.from(move),
+                move < 0 ? -1 : Move.to(move), changed);
+        return changed;
+    }
+
+    /*
+     * Repaint the piles that changed, both as they were and as they are now, and
+     * the hint, which no longer applies. Then search the new position, estimate
+     * its odds if they are shown, and show the stats of a game just finished.
+     */
+    private void boardChanged(Board board, long version, int piles) {
+        Rectangle damage = this.clearDamage();
+        this.addHintBounds(damage);
+        this.hint = null;
+        this.layout.addBounds(piles, damage);
+        this.layout.update(board);
+        this.layout.addBounds(piles, damage);
+        this.invalidateBackground();
+        this.repaint(damage);
+        this.hints.search(board);
+        this.odds.estimate(board);
+        this.stats.refresh();
+    }
+
+    /* Outline the piles of the best move known for the position, or beep if there is none yet. */
+    private void showHint() {
+        Hint hint = this.hints.getHint(this.board);
+        if (hint == null || hint.getMove() < 0) {
+            Toolkit.getDefaultToolkit().beep();
+            return;
+        }
+        Rectangle damage = this.clearDamage();
+        this.addHintBounds(damage);
+        this.hint = hint;
+        int move = hint.getMove();
+        int from = Move.from(move);
+        int to = Move.to(move);
+        switch (Move.kind(move)) {
+            case Move.STOCK:
+                this.setHintCard(0, this.layout.getStockX(), this.layout.getTopY());
+                this.setHintCard(1, this.layout.getStockX(), this.layout.getTopY());
+                break;
+            case Move.WASTE_TO_FOUNDATION:
+            case Move.WASTE_TO_TABLEAU:
+                this.setHintCard(0, this.layout.getWasteX(from), this.layout.getTopY());
+                break;
+            default:
+                this.setHintCard(0, this.layout.getColumnX(from), this.getTopCardY(from));
+                break;
+        }
+        if (Move.isToFoundation(move)) {
+            this.setHintCard(1, this.layout.getFoundationX(to), this.layout.getTopY());
+        } else if (Move.isToTableau(move)) {
+            this.setHintCard(1, this.layout.getColumnX(to), this.getTopCardY(to));
+        }
+        this.addHintBounds(damage);
+        this.repaint(damage);
+    }
+
+    private void setHintCard(int i, double x, double y) {
+        this.hintX[i] = x;
+        this.hintY[i] = y;
+    }
+
+    /* The y of the top card of a column, or of its base when it is empty. */
+    private double getTopCardY(int column) {
+        return this.layout.getCardY(Math.max(0, this.board.getTableauSize(column) - 1));
+    }
+
+    /* The reused damage rectangle, emptied. repaint copies it, so it can be reused right after. */
+    private Rectangle clearDamage() {
+        this.damage.setBounds(0, 0, 0, 0);
+        return this.damage;
+    }
+
+    private void addHintBounds(Rectangle dest) {
+        if (this.hint == null) {
+            return;
+        }
+        Rectangle bounds = this.hintBounds;
+        bounds.setBounds(0, 0, 0, 0);
+        for (int i = 0; i < 2; i += 1) {
+            this.layout.addCardBounds(this.hintX[i], this.hintY[i], bounds);
+            // The outline is drawn centered on the card's edge.
+            bounds.grow(2, 2);
+            if (dest.isEmpty()) {
+                dest.setBounds(bounds);
+            } else {
+                dest.add(bounds);
+            }
+            bounds.setSize(0, 0);
+        }
+    }
+
+    private void invalidateBackground() {
+        this.backgroundValid = false;
+    }
+
+    /* Copy the table without the cards in flight, redrawing it first if it changed. */
+    private void drawBackground(Graphics2D g2d) {
+        double scale = this.sprites.getScale();
+        int width = Math.max(1, (int) Math.ceil(this.getWidth() * scale));
+        int height = Math.max(1, (int) Math.ceil(this.getHeight() * scale));
+        if (this.background == null || this.background.getWidth() != width || this.background.getHeight() != height) {
+            this.background = g2d.getDeviceConfiguration().createCompatibleImage(width, height);
+            this.backgroundValid = false;
+        }
+        if (!this.backgroundValid) {
+            Graphics2D g = this.background.createGraphics();
+            try {
+                g.scale(scale, scale);
+                g.setColor(this.getBackground());
+                g.fillRect(0, 0, this.getWidth(), this.getHeight());
+                this.drawStock(g);
+                this.drawWaste(g);
+                this.drawFoundation(g);
+                this.drawTableau(g);
+            } finally {
+                g.dispose();
+            }
+            this.backgroundValid = true;
+        }
+        if (scale == 1) {
+            g2d.drawImage(this.background, 0, 0, null);
+        } else {
+            g2d.drawImage(this.background, 0, 0, this.getWidth(), this.getHeight(), null);
+        }
+    }
+
+    private void animateMove(int move, boolean undone) {
+        this.animateMove(move, undone, Double.NaN, Double.NaN);
+    }
+
+    /*
+     * Fly the card a move carried from its source pile to its target pile, or back
+     * when the move was taken back. A card moved forward can start from a given
+     * position instead of its source pile.
+     */
+    private void animateMove(int move, boolean undone, double startX, double startY) {
+        int kind = Move.kind(move);
+        if (kind == Move.STOCK) {
+            return;
+        }
+        int from = Move.from(move);
+        int to = Move.to(move);
+        boolean fromWaste = kind == Move.WASTE_TO_FOUNDATION || kind == Move.WASTE_TO_TABLEAU;
+        boolean toFoundation = Move.isToFoundation(move);
+
+        // The card sits on top of the pile it is on, just above the top of the pile it left.
+        int fromSize = this.board.getTableauSize(from);
+        int toSize = this.board.getTableauSize(to);
+        double sourceX = fromWaste ? this.layout.getWasteX(from) : this.layout.getColumnX(from);
+        double sourceY = fromWaste ? this.layout.getTopY() : this.layout.getCardY(undone ? fromSize - 1 : fromSize);
+        double targetX = toFoundation ? this.layout.getFoundationX(to) : this.layout.getColumnX(to);
+        double targetY = toFoundation ? this.layout.getTopY() : this.layout.getCardY(undone ? toSize : toSize - 1);
+
+        if (undone) {
+            Card card = fromWaste ? this.board.getWasteCard(from) : this.board.getTableauCard(from, fromSize - 1);
+            this.animator.fly(card, targetX, targetY, sourceX, sourceY);
+        } else {
+            Card card = toFoundation ? this.board.getFoundationCard(to) : this.board.getTableauCard(to, toSize - 1);
+            if (!Double.isNaN(startX)) {
+                sourceX = startX;
+                sourceY = startY;
+            }
+            this.animator.fly(card, sourceX, sourceY, targetX, targetY);
+        }
+        this.invalidateBackground();
+    }
+
+    /*
+     * Once no card is hidden, moving a card to the foundation can only uncover
+     * cards, never bury one, so auto-complete plays foundation moves, drawing from
+     * the stock when there are none, until a full pass of the stock finds nothing.
+     */
+    private void startAutoPlay() {
+        if (!this.board.hasHiddenCards() && !this.autoPlayTimer.isRunning()) {
+            this.autoPlayDraws = 0;
+            this.autoPlayTimer.start();
+        }
+    }
+
+    private void autoPlay() {
+        int count = this.board.generateMoves(this.moves);
+        for (int i = 0; i < count; i += 1) {
+            int move = this.moves[i];
+            if (Move.isToFoundation(move)) {
+                this.perform(BoardOperation.APPLY, move);
+                this.animateMove(move, false);
+                this.autoPlayDraws = 0;
+                return;
+            }
+        }
+        if (this.board.isStockMovable() && this.autoPlayDraws < DECK_SIZE) {
+            this.perform(BoardOperation.STOCK, Move.of(Move.STOCK, 0, 0));
+            this.autoPlayDraws += 1;
+            return;
+        }
+        this.autoPlayTimer.stop();
+    }
+
+    private void select(SelectedCard selectedCard, double x, double y) {
+        this.selectedCard = selectedCard;
+        this.dragX = x;
+        this.dragY = y;
+        this.shownX = x;
+        this.shownY = y;
+        this.dragFrameNanos = 0;
+        int frameMillis = this.getFrameMillis();
+        this.frameTimer.setInitialDelay(frameMillis);
+        this.animator.setFrameMillis(frameMillis);
+        this.invalidateBackground();
+    }
+
+    /* Drop the selected card back onto its pile and erase it where it was dragged. */
+    private void clearSelection() {
+        if (this.selectedCard == null) {
+            return;
+        }
+        Rectangle damage = this.clearDamage();
+        this.addSelectedBounds(damage);
+        int i = this.selectedCard.getIndex();
+        this.layout.addBounds(this.selectedCard.getLocation() == Location.WASTE ? Pile.WASTE : Pile.column(i), damage);
+        this.selectedCard = null;
+        this.frameTimer.stop();
+        this.invalidateBackground();
+        this.repaint(damage);
+    }
+
+    /* Move the dragged card to the latest pointer position, repainting where it was and where it is. */
+    private void showDrag() {
+        if (this.selectedCard == null) {
+            return;
+        }
+        if (Metrics.ENABLED) {
+            long now = System.nanoTime();
+            if (this.dragFrameNanos != 0) {
+                Metrics.DRAG_FRAME_NANOS.record(now - this.dragFrameNanos);
+            }
+            this.dragFrameNanos = now;
+        }
+        Rectangle damage = this.clearDamage();
+        this.addSelectedBounds(damage);
+        this.shownX = this.dragX;
+        this.shownY = this.dragY;
+        this.addSelectedBounds(damage);
+        this.repaint(damage);
+    }
+
+    private void addSelectedBounds(Rectangle dest) {
+        double x = this.shownX - this.selectedCard.getOffsetX();
+        double y = this.shownY - this.selectedCard.getOffsetY();
+        this.layout.addCardBounds(x, y, dest);
+    }
+
+    /* The time between two refreshes of the display showing this component. */
+    private int getFrameMillis() {
+        int rate = DisplayMode.REFRESH_RATE_UNKNOWN;
+        GraphicsConfiguration configuration = this.getGraphicsConfiguration();
+        if (configuration != null && !GraphicsEnvironment.isHeadless()) {
+            rate = configuration.getDevice().getDisplayMode().getRefreshRate();
+        }
+        if (rate == DisplayMode.REFRESH_RATE_UNKNOWN) {
+            rate = DEFAULT_REFRESH_RATE;
+        }
+        return Math.max(1, 1000 / rate);
     }
 
     private boolean isSelectedCard(Location location, int index) {
@@ -181,74 +657,95 @@ public class GUI extends JPanel implements Runnable {
     }
 
     private void drawStock(Graphics2D g2d) {
+        double x = this.layout.getStockX();
+        double y = this.layout.getTopY();
         if (this.board.isStockEmpty()) {
-            drawPlaceholder(g2d, this.stock);
+            this.sprites.drawPlaceholder(g2d, x, y);
         } else {
-            drawCard(g2d, this.stock, null);
+            this.sprites.drawCard(g2d, null, x, y);
         }
     }
 
     private void drawWaste(Graphics2D g2d) {
-        for (int i = 0; i < this.waste.length; i += 1) {
+        for (int i = 0; i < WASTE_SIZE; i += 1) {
             Card card = this.board.getWasteCard(i);
-            if (card != null && !this.isSelectedCard(Location.WASTE, i)) {
-                drawCard(g2d, waste[i], card);
+            if (card != null && !this.isSelectedCard(Location.WASTE, i) && !this.animator.isFlying(card)) {
+                this.sprites.drawCard(g2d, card, this.layout.getWasteX(i), this.layout.getTopY());
             }
         }
     }
 
     private void drawFoundation(Graphics2D g2d) {
-        for (int i = 0; i < this.foundation.length; i += 1) {
+        for (int i = 0; i < FOUNDATION_SIZE; i += 1) {
             Card card = this.board.getFoundationCard(i);
+            // Cards still flying to the foundation have not covered the one below yet.
+            while (this.animator.isFlying(card)) {
+                CardValue value = card.getValue().prev();
+                card = value == null ? null : Card.of(card.getType(), value);
+            }
+            double x = this.layout.getFoundationX(i);
             if (card == null) {
-                drawPlaceholder(g2d, this.foundation[i]);
+                this.sprites.drawPlaceholder(g2d, x, this.layout.getTopY());
             } else {
-                drawCard(g2d, this.foundation[i], card);
+                this.sprites.drawCard(g2d, card, x, this.layout.getTopY());
             }
         }
     }
 
     private void drawTableau(Graphics2D g2d) {
-        for (int i = 0; i < this.tableauBase.length; i += 1) {
-            Rectangle2D base = this.tableauBase[i];
-            drawPlaceholder(g2d, base);
-
-            Card[] cards = this.board.getTableauCards(i);
-            Rectangle2D[] column = new Rectangle2D[cards.length];
-            this.tableau[i] = column;
-
-            double x = base.getX();
-            double y = base.getY();
-            double deltaY = 0;
-            for (int j = 0; j < cards.length; j += 1) {
-                column[j] = new Rectangle2D.Double(x, y + deltaY, this.cardWidth, this.cardHeight);
-                if (j == cards.length - 1 && isSelectedCard(Location.TABLEAU, i)) {
+        for (int i = 0; i < TABLEAU_SIZE; i += 1) {
+            Card[] cards = this.columnBuffer;
+            int size = this.board.getTableauCards(i, cards);
+            while (size > 0 && this.animator.isFlying(cards[size - 1])) {
+                size -= 1;
+            }
+            double x = this.layout.getColumnX(i);
+            if (size == 0) {
+                this.sprites.drawPlaceholder(g2d, x, this.layout.getCardY(0));
+            }
+
+            for (int j = 0; j < size; j += 1) {
+                double y = this.layout.getCardY(j);
+                if (j == size - 1 && isSelectedCard(Location.TABLEAU, i)) {
                     break;
+                } else if (j == size - 1) {
+                    this.sprites.drawCard(g2d, cards[j], x, y);
                 } else {
-                    drawCard(g2d, column[j], cards[j]);
+                    this.sprites.drawCardTop(g2d, cards[j], x, y, this.layout.getMarginHeight());
                 }
-                deltaY += this.marginHeight;
             }
         }
     }
 
     private void drawSelectedCards(Graphics2D g2d) {
         if (this.selectedCard != null) {
-            Point point = this.getMousePosition();
-            double x = point.getX() - this.selectedCard.getOffsetX();
-            double y = point.getY() - this.selectedCard.getOffsetY();
-            Rectangle2D r = new Rectangle2D.Double(x, y, this.cardWidth, this.cardHeight);
-
+            double x = this.shownX - this.selectedCard.getOffsetX();
+            double y = this.shownY - this.selectedCard.getOffsetY();
             Card card;
             int i = this.selectedCard.getIndex();
             if (this.selectedCard.getLocation() == Location.WASTE) {
                 card = this.board.getWasteCard(i);
             } else {
-                int j = this.tableau[i].length - 1;
-                card = this.board.getTableauCard(i, j);
+                card = this.board.getTableauCard(i, this.board.getTableauSize(i) - 1);
             }
 
-            drawCard(g2d, r, card);
+            this.sprites.drawCard(g2d, card, x, y);
+        }
+    }
+
+    private void drawHint(Graphics2D g2d) {
+        if (this.hint == null) {
+            return;
+        }
+        Verdict verdict = this.hint.getVerdict();
+        g2d.setColor(verdict == Verdict.SOLVED ? WINNING_HINT_COLOR
+                : verdict == Verdict.UNSOLVABLE ? LOSING_HINT_COLOR : HINT_COLOR);
+        Stroke stroke = g2d.getStroke();
+        g2d.setStroke(this.hintStroke);
+        for (int i = 0; i < 2; i += 1) {
+            g2d.drawRect((int) Math.round(this.hintX[i]), (int) Math.round(this.hintY[i]),
+                    (int) Math.round(this.layout.getCardWidth()), (int) Math.round(this.layout.getCardHeight()));
         }
+        g2d.setStroke(stroke);
     }
 }
@@ -0,0 +1,236 @@
+package frontend;
+
+import backend.Board;
+import backend.Pile;
+
+import java.awt.Rectangle;
+
+import static backend.Board.FOUNDATION_SIZE;
+import static backend.Board.TABLEAU_SIZE;
+import static backend.Board.WASTE_SIZE;
+
+/**
+ * Where every pile and card sits on screen. Geometry is kept in primitive
+ * arrays and recomputed only when the component is resized or the board
+ * changes, and every hit-test is answered arithmetically in constant time:
+ * - piles in a row are found by dividing by the distance between piles.
+ * - cards in a column are found by dividing by the distance between cards.
+ * Points are inside a card when x <= point < x + width, as for Rectangle2D.
+ */
+class Layout {
+    private double cardWidth;
+    private double cardHeight;
+    private double marginWidth;
+    private double marginHeight;
+
+    private double stockX;
+    private double topY;
+    private final double[] wasteX;
+    private final double[] foundationX;
+    private final double[] columnX;
+    private double columnY;
+
+    /* The board the hit-tests answer for, as of the last update. */
+    private int wasteMask;
+    private final int[] columnSizes;
+
+    Layout() {
+        this.wasteX = new double[WASTE_SIZE];
+        this.foundationX = new double[FOUNDATION_SIZE];
+        this.columnX = new double[TABLEAU_SIZE];
+        this.columnSizes = new int[TABLEAU_SIZE];
+    }
+
+    /* Recompute card dimensions and pile positions for a component size. */
+    void resize(int width, int height) {
+        // Card dimensions and margins follow eyeball heuristics.
+        this.cardHeight = height / 7.5;
+        this.cardWidth = width / 11.0;
+        this.marginHeight = this.cardHeight / 4;
+        this.marginWidth = this.cardWidth / 3;
+
+        this.stockX = this.marginWidth;
+        this.topY = this.marginHeight;
+
+        // Waste cards fan out to the right of the stock.
+        double x = this.stockX + this.cardWidth + this.marginWidth;
+        for (int i = 0; i < WASTE_SIZE; i += 1) {
+            this.wasteX[i] = x + i * 1.5 * this.marginWidth;
+        }
+
+        x += 3 * (this.cardWidth + this.marginWidth);
+        for (int i = 0; i < FOUNDATION_SIZE; i += 1) {
+            this.foundationX[i] = x + i * this.getPitch();
+        }
+
+        x = this.cardWidth + 2 * this.marginWidth;
+        for (int i = 0; i < TABLEAU_SIZE; i += 1) {
+            this.columnX[i] = x + i * this.getPitch();
+        }
+        this.columnY = this.cardHeight + 2 * this.marginHeight;
+    }
+
+    /* Record which waste slots hold cards and how tall every column is. */
+    void update(Board board) {
+        int wasteMask = 0;
+        for (int i = 0; i < WASTE_SIZE; i += 1) {
+            if (board.getWasteCard(i) != null) {
+                wasteMask |= 1 << i;
+            }
+        }
+        this.wasteMask = wasteMask;
+        for (int i = 0; i < TABLEAU_SIZE; i += 1) {
+            this.columnSizes[i] = board.getTableauSize(i);
+        }
+    }
+
+    double getCardWidth() {
+        return this.cardWidth;
+    }
+
+    double getCardHeight() {
+        return this.cardHeight;
+    }
+
+    double getMarginHeight() {
+        return this.marginHeight;
+    }
+
+    double getStockX() {
+        return this.stockX;
+    }
+
+    /* The y of the stock, the waste and the foundation. */
+    double getTopY() {
+        return this.topY;
+    }
+
+    double getWasteX(int i) {
+        return this.wasteX[i];
+    }
+
+    double getFoundationX(int i) {
+        return this.foundationX[i];
+    }
+
+    double getColumnX(int column) {
+        return this.columnX[column];
+    }
+
+    /* The y of the j-th card from the bottom of a column. */
+    double getCardY(int j) {
+        return this.columnY + j * this.marginHeight;
+    }
+
+    boolean isOnStock(double x, double y) {
+        return this.isInTopRow(y) && x >= this.stockX && x < this.stockX + this.cardWidth;
+    }
+
+    /* The topmost waste slot holding a card under a point, or -1. */
+    int wasteAt(double x, double y) {
+        if (!this.isInTopRow(y)) {
+            return -1;
+        }
+        for (int i = WASTE_SIZE - 1; i >= 0; i -= 1) {
+            if ((this.wasteMask & (1 << i)) != 0 && x >= this.wasteX[i] && x < this.wasteX[i] + this.cardWidth) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /* The foundation slot under a point, or -1. */
+    int foundationAt(double x, double y) {
+        if (!this.isInTopRow(y)) {
+            return -1;
+        }
+        return this.slotAt(this.foundationX, x);
+    }
+
+    /*
+     * The column whose top card is under a point, or whose empty base is when it
+     * has no cards, or -1.
+     */
+    int topAt(double x, double y) {
+        int column = this.slotAt(this.columnX, x);
+        if (column < 0) {
+            return -1;
+        }
+        double top = this.getCardY(Math.max(0, this.columnSizes[column] - 1));
+        return y >= top && y < top + this.cardHeight ? column : -1;
+    }
+
+    /* The index of the frontmost card of a column under a given y, or -1. */
+    int cardAt(int column, double y) {
+        int size = this.columnSizes[column];
+        if (size == 0 || y < this.columnY || y >= this.getCardY(size - 1) + this.cardHeight) {
+            return -1;
+        }
+        return Math.min(size - 1, (int) ((y - this.columnY) / this.marginHeight));
+    }
+
+    /*
+     * Grow dest to cover the piles in a Pile mask, columns as tall as they were at
+     * the last update. An empty dest is replaced rather than grown.
+     */
+    void addBounds(int piles, Rectangle dest) {
+        double top = this.topY;
+        if ((piles & Pile.STOCK) != 0) {
+            this.addCardBounds(this.stockX, top, this.cardHeight, dest);
+        }
+        if ((piles & Pile.WASTE) != 0) {
+            double height = this.cardHeight;
+            this.addCardBounds(this.wasteX[0], top, height, dest);
+            this.addCardBounds(this.wasteX[WASTE_SIZE - 1], top, height, dest);
+        }
+        for (int i = 0; i < FOUNDATION_SIZE; i += 1) {
+            if ((piles & Pile.foundation(i)) != 0) {
+                this.addCardBounds(this.foundationX[i], top, this.cardHeight, dest);
+            }
+        }
+        for (int i = 0; i < TABLEAU_SIZE; i += 1) {
+            if ((piles & Pile.column(i)) != 0) {
+                double height = this.getCardY(Math.max(0, this.columnSizes[i] - 1)) + this.cardHeight - this.columnY;
+                this.addCardBounds(this.columnX[i], this.columnY, height, dest);
+            }
+        }
+    }
+
+    /* Grow dest to cover a card at x, y, including its outline. */
+    void addCardBounds(double x, double y, Rectangle dest) {
+        this.addCardBounds(x, y, this.cardHeight, dest);
+    }
+
+    private void addCardBounds(double x, double y, double height, Rectangle dest) {
+        // Sprites are drawn at rounded coordinates and are one pixel wider for the outline.
+        int left = (int) Math.floor(x) - 1;
+        int top = (int) Math.floor(y) - 1;
+        int right = (int) Math.ceil(x + this.cardWidth) + 2;
+        int bottom = (int) Math.ceil(y + height) + 2;
+        if (dest.isEmpty()) {
+            dest.setBounds(left, top, right - left, bottom - top);
+        } else {
+            dest.add(left, top);
+            dest.add(right, bottom);
+        }
+    }
+
+    /* The distance between two foundation slots or two columns. */
+    private double getPitch() {
+        return this.cardWidth + this.marginWidth;
+    }
+
+    private boolean isInTopRow(double y) {
+        return y >= this.topY && y < this.topY + this.cardHeight;
+    }
+
+    /* The slot of an evenly spaced row whose card spans x, or -1. */
+    private int slotAt(double[] slots, double x) {
+        double offset = x - slots[0];
+        if (offset < 0) {
+            return -1;
+        }
+        int i = (int) (offset / this.getPitch());
+        return i < slots.length && x < slots[i] + this.cardWidth ? i : -1;
+    }
+}
@@ -0,0 +1,68 @@
+package frontend;
+
+import metrics.BoardOperation;
+import metrics.Histogram;
+import metrics.Metrics;
+
+import javax.swing.JComponent;
+import javax.swing.Timer;
+import java.awt.Rectangle;
+
+/**
+ * The metrics, drawn in the lower left corner of the table while shown. The
+ * text is rebuilt and repainted every REFRESH_MILLIS, and only then, so that
+ * the overlay does not itself become the hot path it measures.
+ */
+class MetricsOverlay extends TextOverlay {
+    private static final int REFRESH_MILLIS = 500;
+
+    private final Animator animator;
+    private final Timer timer;
+
+    MetricsOverlay(JComponent component, Animator animator) {
+        super(component);
+        this.animator = animator;
+        this.timer = new Timer(REFRESH_MILLIS, e -> this.refresh());
+    }
+
+    boolean isVisible() {
+        return this.timer.isRunning();
+    }
+
+    void toggle() {
+        if (this.timer.isRunning()) {
+            this.timer.stop();
+            this.show(new String[0]);
+        } else {
+            this.timer.start();
+            this.refresh();
+        }
+    }
+
+    private void refresh() {
+        Histogram drag = Metrics.DRAG_FRAME_NANOS;
+        long dragFrame = drag.getPercentile(0.5);
+        this.show(new String[] {
+            line("paint", Metrics.PAINT_NANOS),
+            line("input to frame", Metrics.INPUT_TO_FRAME_NANOS),
+            String.format("drag: %d frames, %.0f fps", drag.getCount(), dragFrame == 0 ? 0 : 1e9 / dragFrame),
+            String.format("animation: %d frames, %d dropped, %d slow", this.animator.getFrames(),
+                    this.animator.getDroppedFrames(), this.animator.getSlowPaints()),
+            line("move", BoardOperation.APPLY.getNanos()),
+            line("undo", BoardOperation.UNDO.getNanos()),
+            line("redo", BoardOperation.REDO.getNanos()),
+            line("stock", BoardOperation.STOCK.getNanos()),
+        });
+    }
+
+    /* In the lower left corner. */
+    @Override
+    void place(Rectangle bounds) {
+        bounds.setLocation(MARGIN / 2, this.component.getHeight() - bounds.height - MARGIN / 2);
+    }
+
+    private static String line(String name, Histogram histogram) {
+        return String.format("%s: p50 %.1f us, p99 %.1f us (%d)", name, histogram.getPercentile(0.5) / 1e3,
+                histogram.getPercentile(0.99) / 1e3, histogram.getCount());
+    }
+}
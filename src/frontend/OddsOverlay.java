@@ -0,0 +1,110 @@
+package frontend;
+
+import backend.Board;
+import backend.BoardSnapshot;
+import backend.Move;
+import backend.WinEstimate;
+import backend.WinEstimator;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import java.awt.Rectangle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The odds of winning after the best few moves, drawn in the lower right
+ * corner of the table while shown. Every change of the board estimates the
+ * new position on a background thread; an estimate of a position that changes
+ * again is cancelled and dropped. Odds are shown only once an estimate has
+ * WinEstimator.MIN_SAMPLES samples, so that their intervals tell moves apart.
+ */
+class OddsOverlay extends TextOverlay {
+    private static final int MOVES_SHOWN = 3;
+
+    private final WinEstimator estimator;
+    private final ExecutorService requests;
+
+    /* Counts the positions estimated, so that a stale estimate is never shown. */
+    private final AtomicLong generation;
+
+    private boolean visible;
+
+    OddsOverlay(JComponent component) {
+        super(component);
+        this.estimator = new WinEstimator(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        this.requests = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "odds-requests");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.generation = new AtomicLong();
+    }
+
+    void toggle(Board board) {
+        this.visible = !this.visible;
+        if (this.visible) {
+            this.show(new String[] { "odds: estimating..." });
+            this.estimate(board);
+        } else {
+            this.generation.incrementAndGet();
+            this.show(new String[0]);
+        }
+    }
+
+    /*
+     * Estimate a board's position, if shown, leaving the previous odds on screen
+     * until then. Must be called on the event dispatch thread.
+     */
+    void estimate(Board board) {
+        if (!this.visible) {
+            return;
+        }
+        long generation = this.generation.incrementAndGet();
+        BoardSnapshot snapshot = board.snapshot();
+        this.requests.execute(() -> {
+            if (this.generation.get() != generation) {
+                return;
+            }
+            WinEstimate[] estimates;
+            try {
+                estimates = this.estimator.estimate(snapshot.toBoard(), WinEstimator.DEFAULT_MILLIS,
+                        WinEstimator.MIN_SAMPLES, () -> this.generation.get() != generation);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (this.generation.get() != generation) {
+                return;
+            }
+            String[] lines = describe(estimates);
+            SwingUtilities.invokeLater(() -> {
+                if (this.generation.get() == generation) {
+                    this.show(lines);
+                }
+            });
+        });
+    }
+
+    /* In the lower right corner. */
+    @Override
+    void place(Rectangle bounds) {
+        bounds.setLocation(this.component.getWidth() - bounds.width - MARGIN / 2,
+                this.component.getHeight() - bounds.height - MARGIN / 2);
+    }
+
+    private static String[] describe(WinEstimate[] estimates) {
+        if (estimates.length == 0) {
+            return new String[] { "odds: no moves left" };
+        }
+        int shown = Math.min(MOVES_SHOWN, estimates.length);
+        String[] lines = new String[shown + 1];
+        lines[0] = String.format("odds over %d samples:", estimates[0].getSamples());
+        for (int i = 0; i < shown; i += 1) {
+            WinEstimate estimate = estimates[i];
+            lines[i + 1] = String.format("%s: %.0f%% (%.0f-%.0f%%)", Move.toString(estimate.getMove()),
+                    100 * estimate.getProbability(), 100 * estimate.getLow(), 100 * estimate.getHigh());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,78 @@
+package frontend;
+
+import backend.PlayerStats;
+import backend.StatsRecorder;
+
+import javax.swing.JComponent;
+import java.awt.Rectangle;
+
+/**
+ * The player's stats, drawn in the middle of the table while shown. The stats
+ * are kept up to date by the recorder, so showing them reads no file, and they
+ * are described again only when a game is finished.
+ */
+class StatsOverlay extends TextOverlay {
+    /* Where the stats come from, or null if they could not be opened. */
+    private final StatsRecorder recorder;
+
+    private boolean visible;
+    private PlayerStats described;
+
+    StatsOverlay(JComponent component, StatsRecorder recorder) {
+        super(component);
+        this.recorder = recorder;
+    }
+
+    void toggle() {
+        this.visible = !this.visible;
+        if (this.visible) {
+            this.update();
+        } else {
+            this.show(new String[0]);
+        }
+    }
+
+    /* Describe the stats again if shown and a game was finished since. Cheap enough for every board change. */
+    void refresh() {
+        if (this.visible && (this.recorder == null ? null : this.recorder.getStats()) != this.described) {
+            this.update();
+        }
+    }
+
+    private void update() {
+        PlayerStats stats = this.recorder == null ? null : this.recorder.getStats();
+        this.described = stats;
+        this.show(stats == null ? new String[] { "stats: not available" } : describe(stats));
+    }
+
+    /* In the middle of the table. */
+    @Override
+    void place(Rectangle bounds) {
+        bounds.setLocation((this.component.getWidth() - bounds.width) / 2,
+                (this.component.getHeight() - bounds.height) / 2);
+    }
+
+    private static String[] describe(PlayerStats stats) {
+        if (stats.getGames() == 0) {
+            return new String[] { "stats: no game finished yet" };
+        }
+        String games = String.format("games: %d, won %d (%.1f%%)", stats.getGames(), stats.getWins(),
+                100 * stats.getWinRate());
+        String streaks = String.format("streak: %d, best %d", stats.getCurrentStreak(), stats.getBestStreak());
+        if (stats.getWins() == 0) {
+            return new String[] { games, streaks };
+        }
+        return new String[] {
+            games,
+            streaks,
+            String.format("time to win: median %s, p90 %s", duration(stats.getWinMillis(0.5)),
+                    duration(stats.getWinMillis(0.9))),
+            String.format("moves to win: median %d, p90 %d", stats.getWinMoves(0.5), stats.getWinMoves(0.9)),
+        };
+    }
+
+    private static String duration(long millis) {
+        long seconds = millis / 1000;
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
@@ -0,0 +1,73 @@
+package frontend;
+
+import javax.swing.JComponent;
+import java.awt.Color;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+
+/**
+ * A few lines of text drawn on a panel over the table. The panel is fitted to
+ * the lines whenever they change, and only the area it covered before and
+ * covers now is repainted. Subclasses give the lines and where the panel goes.
+ */
+abstract class TextOverlay {
+    static final int MARGIN = 8;
+    private static final Color BACKGROUND = new Color(255, 255, 255, 220);
+
+    final JComponent component;
+    private String[] lines;
+
+    /* Where the overlay is drawn, fitted to the lines whenever they change. */
+    private final Rectangle bounds;
+
+    TextOverlay(JComponent component) {
+        this.component = component;
+        this.lines = new String[0];
+        this.bounds = new Rectangle();
+    }
+
+    void draw(Graphics2D g2d) {
+        if (this.lines.length == 0) {
+            return;
+        }
+        g2d.setColor(BACKGROUND);
+        g2d.fill(this.bounds);
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(this.component.getFont());
+        FontMetrics font = g2d.getFontMetrics();
+        int x = this.bounds.x + MARGIN / 2;
+        int y = this.bounds.y + MARGIN / 2 + font.getAscent();
+        for (int i = 0; i < this.lines.length; i += 1) {
+            g2d.drawString(this.lines[i], x, y + i * font.getHeight());
+        }
+    }
+
+    /* Show new lines, or hide the overlay if there are none. */
+    void show(String[] lines) {
+        this.lines = lines;
+        Rectangle damage = new Rectangle(this.bounds);
+        this.layOut();
+        if (damage.isEmpty()) {
+            damage.setBounds(this.bounds);
+        } else {
+            damage.add(this.bounds);
+        }
+        this.component.repaint(damage);
+    }
+
+    /* Fit the bounds to the lines, then place them. Called again when the component is resized. */
+    void layOut() {
+        FontMetrics font = this.component.getFontMetrics(this.component.getFont());
+        int width = 0;
+        for (String line : this.lines) {
+            width = Math.max(width, font.stringWidth(line));
+        }
+        int height = this.lines.length * font.getHeight();
+        this.bounds.setSize(width + MARGIN, height + MARGIN);
+        this.place(this.bounds);
+    }
+
+    /* Move bounds, already sized to the lines and margin, to where the overlay goes on the component. */
+    abstract void place(Rectangle bounds);
+}
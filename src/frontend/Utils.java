@@ -13,6 +13,9 @@ public class Utils {
     static public final Color HIDDEN_COLOR = Color.GREEN;
     static public final Color PLACEHOLDER_COLOR = Color.GRAY;
     static public final Color CARD_COLOR = Color.YELLOW;
+    static public final Color WINNING_HINT_COLOR = Color.BLUE;
+    static public final Color HINT_COLOR = Color.MAGENTA;
+    static public final Color LOSING_HINT_COLOR = Color.DARK_GRAY;
 
     static public void drawCard(Graphics2D g2d, Rectangle2D r, Card card) {
         if (card == null) {
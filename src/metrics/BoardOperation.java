@@ -0,0 +1,15 @@
+package metrics;
+
+/* The operations on an interactive board that are timed, each into its own histogram of nanoseconds. */
+public enum BoardOperation {
+    APPLY,
+    UNDO,
+    REDO,
+    STOCK;
+
+    private final Histogram nanos = new Histogram();
+
+    public Histogram getNanos() {
+        return this.nanos;
+    }
+}
@@ -0,0 +1,35 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/* A JFR event for one paint of the table, finished like MoveEvent. */
+@Name("solitaire.Frame")
+@Label("Frame")
+@Category("Solitaire")
+@Description("One paint of the table")
+public class FrameEvent extends Event {
+    @Label("Animated")
+    @Description("Whether cards were in flight")
+    boolean animated;
+
+    @Label("Damaged Width")
+    int width;
+
+    @Label("Damaged Height")
+    int height;
+
+    /* End the event and commit it if it is recorded. */
+    public void finish(boolean animated, int width, int height) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.animated = animated;
+            this.width = width;
+            this.height = height;
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package metrics;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts non-negative values in logarithmic buckets, each split into
+ * SUB_BUCKETS linear ones, so that every value is recorded to within about 6%
+ * whatever its magnitude. Recording is lock-free, never allocates and can be
+ * done from any number of threads. Histograms merge by adding their counts,
+ * so histograms kept apart, for instance one per thread or per day, combine
+ * into exactly the histogram of all their values.
+ */
+public class Histogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    /* The most bytes write can take. */
+    public static final int MAX_BYTES = Short.BYTES + BUCKETS * (Short.BYTES + Long.BYTES);
+
+    private final AtomicLongArray counts;
+
+    public Histogram() {
+        this.counts = new AtomicLongArray(BUCKETS);
+    }
+
+    public void record(long value) {
+        this.counts.incrementAndGet(bucket(Math.max(0, value)));
+    }
+
+    /* Add every value recorded by another histogram to this one. */
+    public void add(Histogram other) {
+        for (int i = 0; i < BUCKETS; i += 1) {
+            long count = other.counts.get(i);
+            if (count != 0) {
+                this.counts.addAndGet(i, count);
+            }
+        }
+    }
+
+    /* Write the counts to a buffer: the number of non-empty buckets, then the index and count of each. */
+    public void write(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putShort((short) 0);
+        short used = 0;
+        for (int i = 0; i < BUCKETS; i += 1) {
+            long count = this.counts.get(i);
+            if (count != 0) {
+                buffer.putShort((short) i).putLong(count);
+                used += 1;
+            }
+        }
+        buffer.putShort(start, used);
+    }
+
+    /**
+     * Read counts written by write.
+     *
+     * @throws IllegalArgumentException if the buffer does not hold a histogram.
+     */
+    public static Histogram read(ByteBuffer buffer) {
+        Histogram histogram = new Histogram();
+        try {
+            int used = buffer.getShort();
+            if (used < 0 || used > BUCKETS) {
+                throw new IllegalArgumentException("Corrupt histogram of " + used + " buckets");
+            }
+            for (int i = 0; i < used; i += 1) {
+                int bucket = buffer.getShort();
+                long count = buffer.getLong();
+                if (bucket < 0 || bucket >= BUCKETS || count < 0) {
+                    throw new IllegalArgumentException("Corrupt histogram bucket " + bucket);
+                }
+                histogram.counts.set(bucket, count);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated histogram", e);
+        }
+        return histogram;
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i += 1) {
+            count += this.counts.get(i);
+        }
+        return count;
+    }
+
+    /* The smallest recorded value at or above the given fraction of all values, to bucket precision. */
+    public long getPercentile(double fraction) {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i += 1) {
+            counts[i] = this.counts.get(i);
+            total += counts[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i += 1) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return highestValue(i);
+            }
+        }
+        return highestValue(BUCKETS - 1);
+    }
+
+    public long getMax() {
+        for (int i = BUCKETS - 1; i >= 0; i -= 1) {
+            if (this.counts.get(i) != 0) {
+                return highestValue(i);
+            }
+        }
+        return 0;
+    }
+
+    /* Values below SUB_BUCKETS get a bucket each; above, the top SUB_BITS bits after the leading one pick the bucket. */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    private static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long sub = bucket % SUB_BUCKETS;
+        return ((SUB_BUCKETS + sub + 1) << (exponent - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,75 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and latency histograms for the hot paths, cheap enough to leave on:
+ * recording is a nanoTime read and a lock-free increment, without allocating.
+ * Everything can be turned off with -Dsolitaire.metrics=false, which leaves
+ * only the JFR events, and those cost nothing unless a recording is running.
+ * All times are in nanoseconds.
+ */
+public final class Metrics {
+    public static final boolean ENABLED = !"false".equals(System.getProperty("solitaire.metrics"));
+
+    /* How long GUI.paint takes, whether the table is animated or not. */
+    public static final Histogram PAINT_NANOS = new Histogram();
+
+    /* From an input event that changes the table to the end of the paint that shows it. */
+    public static final Histogram INPUT_TO_FRAME_NANOS = new Histogram();
+
+    /* The time between two frames of a dragged card. */
+    public static final Histogram DRAG_FRAME_NANOS = new Histogram();
+
+    /* How long the server takes to answer a request, from its handler being called. */
+    public static final Histogram REQUEST_NANOS = new Histogram();
+
+    public static final LongAdder INPUT_EVENTS = new LongAdder();
+    public static final LongAdder REQUESTS = new LongAdder();
+
+    /* Requests the server failed to serve, answered with status 500. */
+    public static final LongAdder REQUEST_ERRORS = new LongAdder();
+
+    private Metrics() {
+    }
+
+    /* The current System.nanoTime, or 0 when metrics are off, to pass to record. */
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    /* Record the time since start into a histogram, unless metrics are off. */
+    public static void record(Histogram histogram, long start) {
+        if (ENABLED) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /* A report of every histogram and counter, one per line. */
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        describe("paint", PAINT_NANOS, report);
+        describe("input to frame", INPUT_TO_FRAME_NANOS, report);
+        describe("drag frame", DRAG_FRAME_NANOS, report);
+        for (BoardOperation operation : BoardOperation.values()) {
+            describe("board " + operation.name().toLowerCase(), operation.getNanos(), report);
+        }
+        describe("request", REQUEST_NANOS, report);
+        report.append("input events: ").append(INPUT_EVENTS.sum()).append('\n');
+        report.append("requests: ").append(REQUESTS.sum()).append('\n');
+        report.append("request errors: ").append(REQUEST_ERRORS.sum()).append('\n');
+        return report.toString();
+    }
+
+    /* Append a line of the form "name: count, p50, p99, max" to out. */
+    public static void describe(String name, Histogram histogram, StringBuilder out) {
+        out.append(name).append(": ").append(histogram.getCount());
+        out.append(" samples, p50 ").append(micros(histogram.getPercentile(0.5)));
+        out.append(" us, p99 ").append(micros(histogram.getPercentile(0.99)));
+        out.append(" us, max ").append(micros(histogram.getMax())).append(" us\n");
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1f", nanos / 1e3);
+    }
+}
@@ -0,0 +1,47 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/*
+ * A JFR event for an operation on an interactive board, with the move it
+ * played. Events are created and finished on the stack, which the JIT turns
+ * into no allocation at all, and cost nothing when no recording is running.
+ */
+@Name("solitaire.Move")
+@Label("Board Operation")
+@Category("Solitaire")
+@Description("A move played, taken back or played again on an interactive board")
+public class MoveEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Move Kind")
+    int kind;
+
+    @Label("From")
+    int from;
+
+    @Label("To")
+    int to;
+
+    @Label("Changed")
+    @Description("Whether the board changed, which it does not for illegal moves")
+    boolean changed;
+
+    /* End the event and commit it if it is recorded. */
+    public void finish(BoardOperation operation, int kind, int from, int to, boolean changed) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.operation = operation.name();
+            this.kind = kind;
+            this.from = from;
+            this.to = to;
+            this.changed = changed;
+            this.commit();
+        }
+    }
+}
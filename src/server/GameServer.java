@@ -0,0 +1,243 @@
+package server;
+
+import backend.Board;
+import backend.Move;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hosts many games at once over a small JSON-over-HTTP API:
+ * - POST /games starts a game, on the deal in an optional {"deal": n} body.
+ * - GET /games/{id} returns the state of a game, including its legal moves.
+ * - POST /games/{id}/move plays {"move": code}, a code from the legal moves.
+ * - POST /games/{id}/undo and POST /games/{id}/redo take back or replay a move.
+ * - DELETE /games/{id} ends a game.
+ * Every request runs on its own virtual thread when the JVM has them, and on a
+ * cached thread pool otherwise. Games only lock themselves, so requests for
+ * different games run in parallel; games idle for too long are evicted.
+ */
+public class GameServer {
+    public static final int DEFAULT_PORT = 8080;
+    public static final int DEFAULT_MAX_SESSIONS = 100_000;
+    public static final long DEFAULT_IDLE_MILLIS = 30 * 60 * 1_000;
+
+    private static final String PREFIX = "/games";
+    private static final int MAX_BODY_BYTES = 1 << 10;
+
+    /*
+     * The JDK server leaves Nagle's algorithm on, which holds back every small
+     * response until the client's delayed acknowledgement, tens of milliseconds.
+     * The setting is read when the first server is created.
+     */
+    static {
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer http;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService sweeper;
+    private final SessionRegistry sessions;
+    private final long idleNanos;
+
+    public GameServer(int port) throws IOException {
+        this(port, DEFAULT_MAX_SESSIONS, DEFAULT_IDLE_MILLIS);
+    }
+
+    public GameServer(int port, int maxSessions, long idleMillis) throws IOException {
+        this.http = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = newRequestExecutor();
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sessions = new SessionRegistry(maxSessions);
+        this.idleNanos = idleMillis * 1_000_000;
+
+        this.http.createContext(PREFIX, this::handle);
+        this.http.setExecutor(this.executor);
+    }
+
+    /*
+     * One virtual thread per request. Virtual threads are looked up reflectively
+     * so that the server still builds and runs on JVMs without them.
+     */
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    public void start() {
+        long period = Math.max(1, this.idleNanos / 4);
+        this.sweeper.scheduleAtFixedRate(() -> this.sessions.evictIdle(this.idleNanos), period, period,
+                TimeUnit.NANOSECONDS);
+        this.http.start();
+    }
+
+    /* Stop accepting requests, waiting up to delaySeconds for those in flight. */
+    public void stop(int delaySeconds) {
+        this.http.stop(delaySeconds);
+        this.sweeper.shutdownNow();
+        this.executor.shutdown();
+    }
+
+    /* The port the server listens on, which is chosen by the system if 0 was asked for. */
+    public int getPort() {
+        return this.http.getAddress().getPort();
+    }
+
+    public int getSessionCount() {
+        return this.sessions.size();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long start = Metrics.start();
+        StringBuilder out = new StringBuilder(1 << 10);
+        int status;
+        try {
+            status = this.route(exchange, out);
+        } catch (IllegalArgumentException e) {
+            out.setLength(0);
+            Json.writeError(e.getMessage(), out);
+            status = 400;
+        } catch (RuntimeException e) {
+            /* Still answer, so the client is not left with a closed connection. */
+            out.setLength(0);
+            Json.writeError("Internal error: " + e, out);
+            status = 500;
+            Metrics.REQUEST_ERRORS.increment();
+        }
+        byte[] body = out.toString().getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream stream = exchange.getResponseBody()) {
+            stream.write(body);
+        }
+        Metrics.REQUESTS.increment();
+        Metrics.record(Metrics.REQUEST_NANOS, start);
+    }
+
+    /**
+     * Serve a request, writing the response body into out.
+     *
+     * @return the HTTP status code.
+     */
+    private int route(HttpExchange exchange, StringBuilder out) throws IOException {
+        String method = exchange.getRequestMethod();
+        String path = exchange.getRequestURI().getPath();
+        String rest = path.substring(PREFIX.length());
+        String[] parts = rest.split("/");
+
+        /* parts is [""] for /games, ["", id] for /games/{id} and ["", id, action] below it. */
+        if (!rest.isEmpty() && rest.charAt(0) != '/' || parts.length > 3) {
+            return error(404, "No such resource: " + path, out);
+        }
+        if (parts.length <= 1) {
+            if (!method.equals("POST")) {
+                return error(405, "Use POST to start a game", out);
+            }
+            return this.create(readBody(exchange), out);
+        }
+
+        Session session = this.sessions.get(parts[1]);
+        if (session == null) {
+            return error(404, "No such game: " + parts[1], out);
+        }
+        String action = parts.length == 3 ? parts[2] : "";
+        if (action.isEmpty() && method.equals("DELETE")) {
+            this.sessions.remove(session.getId());
+            return 204;
+        }
+        if (action.isEmpty() ? !method.equals("GET") : !method.equals("POST")) {
+            return error(405, "Method not allowed: " + method, out);
+        }
+        String body = action.equals("move") ? readBody(exchange) : "";
+
+        ReentrantLock lock = session.getLock();
+        lock.lock();
+        try {
+            Board board = session.getBoard();
+            switch (action) {
+                case "":
+                    break;
+                case "move":
+                    Long code = Json.parseObject(body).get("move");
+                    if (code == null || code < 0 || code >= Move.MAX_MOVES) {
+                        return error(400, "Expected {\"move\": code} with a code from the legal moves", out);
+                    }
+                    if (!board.apply(Move.fromCode(code.intValue()))) {
+                        return error(409, "Illegal move: " + Move.toString(Move.fromCode(code.intValue())), out);
+                    }
+                    break;
+                case "undo":
+                    if (!board.undo()) {
+                        return error(409, "No move to undo", out);
+                    }
+                    break;
+                case "redo":
+                    if (!board.redo()) {
+                        return error(409, "No move to redo", out);
+                    }
+                    break;
+                default:
+                    return error(404, "No such action: " + action, out);
+            }
+            Json.writeState(session.getId(), board, new int[Move.MAX_MOVES], out);
+            return 200;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int create(String body, StringBuilder out) {
+        Long deal = Json.parseObject(body).get("deal");
+        Board board = deal == null ? new Board() : new Board(deal);
+        Session session = this.sessions.create(board);
+        if (session == null) {
+            return error(503, "Too many games", out);
+        }
+        ReentrantLock lock = session.getLock();
+        lock.lock();
+        try {
+            Json.writeState(session.getId(), board, new int[Move.MAX_MOVES], out);
+        } finally {
+            lock.unlock();
+        }
+        return 201;
+    }
+
+    private static int error(int status, String message, StringBuilder out) {
+        Json.writeError(message, out);
+        return status;
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream stream = exchange.getRequestBody()) {
+            byte[] bytes = stream.readNBytes(MAX_BODY_BYTES + 1);
+            if (bytes.length > MAX_BODY_BYTES) {
+                throw new IllegalArgumentException("Request body too large");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+}
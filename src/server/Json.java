@@ -0,0 +1,183 @@
+package server;
+
+import backend.Board;
+import backend.Card.Card;
+import backend.Move;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The little JSON the server speaks. Responses are written straight into a
+ * StringBuilder, and requests are flat objects whose values are integers, such
+ * as {"move": 42}, so no general purpose parser is needed.
+ */
+final class Json {
+    private Json() {
+    }
+
+    /**
+     * Write a session's board as an object: the deal, the move count, whether the
+     * game is won, the number of cards left to draw from the stock, the waste,
+     * foundation and tableau cards, and the legal moves with their codes (see
+     * Move.toCode) to post back.
+     * Hidden tableau cards are only counted.
+     */
+    static void writeState(String id, Board board, int[] moves, StringBuilder out) {
+        out.append("{\"id\":\"").append(id).append('"');
+        out.append(",\"deal\":").append(board.getDealNumber());
+        out.append(",\"moveCount\":").append(board.getMoveCount());
+        out.append(",\"won\":").append(board.isWon());
+        out.append(",\"canUndo\":").append(board.canUndo());
+        out.append(",\"canRedo\":").append(board.canRedo());
+        out.append(",\"stockRemaining\":").append(board.getStockRemaining());
+
+        out.append(",\"waste\":[");
+        for (int i = 0; i < Board.WASTE_SIZE; i += 1) {
+            writeCard(board.getWasteCard(i), i > 0, out);
+        }
+        out.append("],\"foundation\":[");
+        for (int i = 0; i < Board.FOUNDATION_SIZE; i += 1) {
+            writeCard(board.getFoundationCard(i), i > 0, out);
+        }
+        out.append("],\"tableau\":[");
+        for (int i = 0; i < Board.TABLEAU_SIZE; i += 1) {
+            int hidden = board.getTableauHiddenCount(i);
+            out.append(i > 0 ? ",{" : "{").append("\"hidden\":").append(hidden).append(",\"cards\":[");
+            for (int j = hidden; j < board.getTableauSize(i); j += 1) {
+                writeCard(board.getTableauCard(i, j), j > hidden, out);
+            }
+            out.append("]}");
+        }
+
+        out.append("],\"moves\":[");
+        int count = board.generateMoves(moves);
+        for (int i = 0; i < count; i += 1) {
+            out.append(i > 0 ? ",{" : "{").append("\"code\":").append(Move.toCode(moves[i]));
+            out.append(",\"move\":\"").append(Move.toString(moves[i])).append("\"}");
+        }
+        out.append("]}");
+    }
+
+    static void writeError(String message, StringBuilder out) {
+        out.append("{\"error\":");
+        writeString(message, out);
+        out.append('}');
+    }
+
+    private static void writeCard(Card card, boolean comma, StringBuilder out) {
+        if (comma) {
+            out.append(',');
+        }
+        if (card == null) {
+            out.append("null");
+        } else {
+            writeString(card.toString(), out);
+        }
+    }
+
+    private static void writeString(String string, StringBuilder out) {
+        out.append('"');
+        for (int i = 0; i < string.length(); i += 1) {
+            char c = string.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.append('\\').append(c);
+            } else if (c < 0x20) {
+                out.append(String.format("\\u%04x", (int) c));
+            } else {
+                out.append(c);
+            }
+        }
+        out.append('"');
+    }
+
+    /**
+     * Parse a flat object of integer values, such as {"deal": 7}. A blank string
+     * is an empty object.
+     *
+     * @throws IllegalArgumentException if the string is anything else.
+     */
+    static Map<String, Long> parseObject(String json) {
+        Map<String, Long> values = new HashMap<>();
+        Parser parser = new Parser(json);
+        if (parser.atEnd()) {
+            return values;
+        }
+        parser.expect('{');
+        if (!parser.accept('}')) {
+            do {
+                String key = parser.string();
+                parser.expect(':');
+                values.put(key, parser.integer());
+            } while (parser.accept(','));
+            parser.expect('}');
+        }
+        if (!parser.atEnd()) {
+            throw new IllegalArgumentException("Trailing characters in JSON");
+        }
+        return values;
+    }
+
+    private static final class Parser {
+        private final String json;
+        private int i;
+
+        Parser(String json) {
+            this.json = json;
+        }
+
+        boolean atEnd() {
+            this.skipSpace();
+            return this.i == this.json.length();
+        }
+
+        boolean accept(char c) {
+            this.skipSpace();
+            if (this.i < this.json.length() && this.json.charAt(this.i) == c) {
+                this.i += 1;
+                return true;
+            }
+            return false;
+        }
+
+        void expect(char c) {
+            if (!this.accept(c)) {
+                throw new IllegalArgumentException("Expected '" + c + "' at " + this.i);
+            }
+        }
+
+        /* A string without escapes, which is all keys ever need. */
+        String string() {
+            this.expect('"');
+            int end = this.json.indexOf('"', this.i);
+            if (end < 0 || this.json.lastIndexOf('\\', end) >= this.i) {
+                throw new IllegalArgumentException("Unsupported string at " + this.i);
+            }
+            String string = this.json.substring(this.i, end);
+            this.i = end + 1;
+            return string;
+        }
+
+        long integer() {
+            this.skipSpace();
+            int start = this.i;
+            if (this.i < this.json.length() && this.json.charAt(this.i) == '-') {
+                this.i += 1;
+            }
+            while (this.i < this.json.length() && Character.isDigit(this.json.charAt(this.i))) {
+                this.i += 1;
+            }
+            try {
+                return Long.parseLong(this.json.substring(start, this.i));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Expected an integer at " + start);
+            }
+        }
+
+        private void skipSpace() {
+            while (this.i < this.json.length() && Character.isWhitespace(this.json.charAt(this.i))) {
+                this.i += 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package server;
+
+import backend.Board;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * One player's game. The board is only touched while holding the session's own
+ * lock, so requests for different sessions never wait for each other. The lock
+ * is a ReentrantLock rather than a monitor so that a virtual thread waiting for
+ * it does not pin its carrier thread.
+ */
+final class Session {
+    private final String id;
+    private final Board board;
+    private final ReentrantLock lock;
+
+    /* When the session was last used, as System.nanoTime. */
+    private volatile long lastAccess;
+
+    Session(String id, Board board) {
+        this.id = id;
+        this.board = board;
+        this.lock = new ReentrantLock();
+        this.lastAccess = System.nanoTime();
+    }
+
+    String getId() {
+        return this.id;
+    }
+
+    /* The board. Callers must hold the lock. */
+    Board getBoard() {
+        return this.board;
+    }
+
+    ReentrantLock getLock() {
+        return this.lock;
+    }
+
+    long getLastAccess() {
+        return this.lastAccess;
+    }
+
+    void touch() {
+        this.lastAccess = System.nanoTime();
+    }
+}
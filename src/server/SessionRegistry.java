@@ -0,0 +1,82 @@
+package server;
+
+import backend.Board;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The sessions a server hosts, by id. Lookups never lock: the map is a
+ * ConcurrentHashMap and every session has its own lock for its board.
+ * The number of sessions is bounded, and sessions that have not been used for
+ * a while are evicted by evictIdle.
+ */
+final class SessionRegistry {
+    private final ConcurrentHashMap<String, Session> sessions;
+    private final AtomicInteger size;
+    private final int maxSessions;
+
+    SessionRegistry(int maxSessions) {
+        this.sessions = new ConcurrentHashMap<>();
+        this.size = new AtomicInteger();
+        this.maxSessions = maxSessions;
+    }
+
+    /**
+     * Start a session on a new board.
+     *
+     * @return the session, or null if there are already maxSessions sessions.
+     */
+    Session create(Board board) {
+        if (this.size.incrementAndGet() > this.maxSessions) {
+            this.size.decrementAndGet();
+            return null;
+        }
+        while (true) {
+            String id = String.format("%016x", ThreadLocalRandom.current().nextLong());
+            Session session = new Session(id, board);
+            if (this.sessions.putIfAbsent(id, session) == null) {
+                return session;
+            }
+        }
+    }
+
+    /* The session with an id, marked as used, or null. */
+    Session get(String id) {
+        Session session = this.sessions.get(id);
+        if (session != null) {
+            session.touch();
+        }
+        return session;
+    }
+
+    boolean remove(String id) {
+        if (this.sessions.remove(id) == null) {
+            return false;
+        }
+        this.size.decrementAndGet();
+        return true;
+    }
+
+    int size() {
+        return this.size.get();
+    }
+
+    /**
+     * Remove the sessions that have not been used for idleNanos.
+     *
+     * @return the number of sessions removed.
+     */
+    int evictIdle(long idleNanos) {
+        long now = System.nanoTime();
+        int evicted = 0;
+        for (Session session : this.sessions.values()) {
+            if (now - session.getLastAccess() > idleNanos && this.sessions.remove(session.getId(), session)) {
+                this.size.decrementAndGet();
+                evicted += 1;
+            }
+        }
+        return evicted;
+    }
+}
@@ -0,0 +1,87 @@
+package backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardStateTest {
+    @Test
+    void decodingAnEncodingGivesTheSamePosition() {
+        SplittableRandom random = new SplittableRandom(1);
+        byte[] encoding = new byte[BoardState.MAX_SIZE];
+        for (long deal = 0; deal < 200; deal += 1) {
+            Board board = Games.play(deal, random.nextInt(150), random);
+            int length = BoardState.encode(board, encoding, 0);
+            assertTrue(length <= BoardState.MAX_SIZE);
+
+            BoardState state = BoardState.fromBytes(encoding, 0, length);
+            assertEquals(BoardState.of(board), state);
+            Board decoded = state.toBoard();
+            assertEquals(state, BoardState.of(decoded));
+            assertEquals(board.positionHash(), decoded.positionHash());
+            assertEquals(board.canonicalHash(), decoded.canonicalHash());
+            assertEquals(decoded.computePositionHash(), decoded.positionHash());
+        }
+    }
+
+    @Test
+    void decodingIntoAUsedBoardReplacesItsPosition() {
+        SplittableRandom random = new SplittableRandom(2);
+        Board reused = Games.play(1000, 50, random);
+        byte[] encoding = new byte[BoardState.MAX_SIZE];
+        for (long deal = 0; deal < 100; deal += 1) {
+            Board board = Games.play(deal, random.nextInt(150), random);
+            BoardState.encode(board, encoding, 0);
+            BoardState.decode(encoding, 0, reused);
+            assertEquals(BoardState.of(board), BoardState.of(reused));
+            assertEquals(board.getStock().isRecycled(), reused.getStock().isRecycled());
+            assertEquals(board.positionHash(), reused.positionHash());
+            assertEquals(0, reused.getMoveCount());
+        }
+    }
+
+    @Test
+    void hiddenOffsetsPointAtEveryUnseenCard() {
+        SplittableRandom random = new SplittableRandom(3);
+        byte[] encoding = new byte[BoardState.MAX_SIZE];
+        int[] offsets = new int[Board.DECK_SIZE];
+        int recycled = 0;
+        for (long deal = 0; deal < 100; deal += 1) {
+            Board board = Games.play(deal, random.nextInt(200), random);
+            BoardState.encode(board, encoding, 0);
+            CardStock stock = board.getStock();
+            int unseen = stock.isRecycled() ? 0 : stock.getRemaining();
+            recycled += stock.isRecycled() ? 1 : 0;
+            int hidden = unseen;
+            for (int i = 0; i < Board.TABLEAU_SIZE; i += 1) {
+                hidden += board.getTableauHiddenCount(i);
+            }
+            int count = BoardState.hiddenOffsets(encoding, 0, offsets);
+            assertEquals(hidden, count);
+
+            /* The stock comes first: the cards at its head that were never drawn. */
+            for (int i = 0; i < unseen; i += 1) {
+                assertEquals(stock.getCard(i).ordinal(), encoding[offsets[i]]);
+            }
+            for (int i = unseen; i < count; i += 1) {
+                assertTrue(offsets[i] >= 2 + stock.size() + Board.WASTE_SIZE + 3);
+            }
+        }
+        assertTrue(recycled > 0);
+    }
+
+    @Test
+    void equalPositionsHaveEqualEncodings() {
+        Board first = Games.play(5, 30, new SplittableRandom(4));
+        Board second = Games.play(5, 30, new SplittableRandom(4));
+        byte[] a = new byte[BoardState.MAX_SIZE];
+        byte[] b = new byte[BoardState.MAX_SIZE];
+        assertEquals(BoardState.encode(first, a, 0), BoardState.encode(second, b, 0));
+        assertArrayEquals(a, b);
+        assertEquals(BoardState.of(first).hash64(), BoardState.of(second).hash64());
+    }
+}
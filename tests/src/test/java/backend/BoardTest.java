@@ -0,0 +1,194 @@
+package backend;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoardTest {
+    @Test
+    void undoAndRedoRestoreThePositionAndItsHashes() {
+        SplittableRandom random = new SplittableRandom(1);
+        int[] moves = new int[Move.MAX_MOVES];
+        for (long deal = 0; deal < 40; deal += 1) {
+            Board board = new Board(deal);
+            for (int step = 0; step < 150 && !board.isWon(); step += 1) {
+                int count = board.generateMoves(moves);
+                if (count == 0) {
+                    break;
+                }
+                BoardState before = BoardState.of(board);
+                long hash = board.positionHash();
+                long canonical = board.canonicalHash();
+
+                assertTrue(board.apply(moves[random.nextInt(count)]));
+                BoardState after = BoardState.of(board);
+                long afterHash = board.positionHash();
+                long afterCanonical = board.canonicalHash();
+                assertHashesMatch(board);
+
+                assertTrue(board.undo());
+                assertEquals(before, BoardState.of(board));
+                assertEquals(hash, board.positionHash());
+                assertEquals(canonical, board.canonicalHash());
+                assertHashesMatch(board);
+
+                assertTrue(board.redo());
+                assertEquals(after, BoardState.of(board));
+                assertEquals(afterHash, board.positionHash());
+                assertEquals(afterCanonical, board.canonicalHash());
+            }
+        }
+    }
+
+    @Test
+    void undoingEveryMoveReturnsToTheDeal() {
+        SplittableRandom random = new SplittableRandom(2);
+        for (long deal = 100; deal < 120; deal += 1) {
+            Board board = Games.play(deal, 200, random);
+            BoardState end = BoardState.of(board);
+            int count = board.getMoveCount();
+
+            while (board.undo()) {
+            }
+            assertFalse(board.canUndo());
+            assertEquals(BoardState.of(new Board(deal)), BoardState.of(board));
+            assertEquals(new Board(deal).positionHash(), board.positionHash());
+
+            while (board.redo()) {
+            }
+            assertEquals(count, board.getMoveCount());
+            assertEquals(end, BoardState.of(board));
+        }
+    }
+
+    @Test
+    void aMoveAfterUndoDropsTheMovesTakenBack() {
+        Board board = Games.play(7, 20, new SplittableRandom(3));
+        int count = board.getMoveCount();
+        board.undo();
+        board.undo();
+        assertTrue(board.canRedo());
+
+        int[] moves = new int[Move.MAX_MOVES];
+        assertTrue(board.apply(moves[board.generateMoves(moves) - 1]));
+        assertFalse(board.canRedo());
+        assertEquals(count - 1, board.getMoveCount());
+    }
+
+    @Test
+    void snapshotsKeepTheirPositionWhileTheBoardMoves() {
+        SplittableRandom random = new SplittableRandom(4);
+        Board board = new Board(11);
+        int[] moves = new int[Move.MAX_MOVES];
+        BoardSnapshot[] snapshots = new BoardSnapshot[60];
+        BoardState[] states = new BoardState[snapshots.length];
+        int[] stockSizes = new int[snapshots.length];
+        boolean[] stockEmpty = new boolean[snapshots.length];
+        for (int i = 0; i < snapshots.length; i += 1) {
+            snapshots[i] = board.snapshot();
+            states[i] = BoardState.of(board);
+            stockSizes[i] = board.getStock().size();
+            stockEmpty[i] = board.isStockEmpty();
+            int count = board.generateMoves(moves);
+            if (count == 0) {
+                break;
+            }
+            if (i % 5 == 4 && board.canUndo()) {
+                board.undo();
+            } else {
+                board.apply(moves[random.nextInt(count)]);
+            }
+        }
+        for (int i = 0; i < snapshots.length && snapshots[i] != null; i += 1) {
+            Board copy = snapshots[i].toBoard();
+            assertEquals(states[i], BoardState.of(copy));
+            assertEquals(snapshots[i].positionHash(), copy.positionHash());
+            assertEquals(snapshots[i].getMoveCount(), copy.getMoveCount());
+            assertEquals(stockSizes[i], snapshots[i].getStockSize());
+            assertEquals(stockEmpty[i], snapshots[i].isStockEmpty());
+        }
+    }
+
+    @Test
+    void aSnapshotAfterTheLastDrawOfAPassHasAnEmptyStock() {
+        Board board = new Board(3);
+        while (!board.isStockEmpty()) {
+            board.apply(Move.of(Move.STOCK, 0, 0));
+        }
+        BoardSnapshot snapshot = board.snapshot();
+        assertTrue(snapshot.getStockSize() > 0);
+        assertTrue(snapshot.isStockEmpty());
+        assertEquals(0, snapshot.getStockRemaining());
+    }
+
+    @Test
+    void theCanonicalHashIgnoresTheOrderOfColumnsAndFoundations() {
+        SplittableRandom random = new SplittableRandom(5);
+        byte[] encoding = new byte[BoardState.MAX_SIZE];
+        for (long deal = 0; deal < 100; deal += 1) {
+            Board board = Games.play(deal, 20 + random.nextInt(200), random);
+            int length = BoardState.encode(board, encoding, 0);
+            Board permuted = permute(encoding, length, random);
+            assertEquals(board.canonicalHash(), permuted.canonicalHash());
+            assertEquals(permuted.computeCanonicalPositionHash(), permuted.canonicalHash());
+
+            /* The positionHash still tells the two positions apart. */
+            if (!BoardState.of(board).equals(BoardState.of(permuted))) {
+                assertNotEquals(board.positionHash(), permuted.positionHash());
+            }
+        }
+    }
+
+    /* Decode an encoding with its tableau columns and its foundation slots shuffled. */
+    private static Board permute(byte[] encoding, int length, SplittableRandom random) {
+        byte[] permuted = encoding.clone();
+        int i = 2 + encoding[0] + Board.WASTE_SIZE + 2;
+
+        int[] slots = shuffled(Board.FOUNDATION_SIZE, random);
+        int types = 0;
+        for (int j = 0; j < Board.FOUNDATION_SIZE; j += 1) {
+            types |= ((encoding[i] >>> (2 * slots[j])) & 0x3) << (2 * j);
+        }
+        permuted[i] = (byte) types;
+        i += 1;
+
+        int[] starts = new int[Board.TABLEAU_SIZE];
+        for (int j = 0, at = i; j < Board.TABLEAU_SIZE; j += 1) {
+            starts[j] = at;
+            at += 2 + encoding[at] + encoding[at + 1];
+        }
+        int[] columns = shuffled(Board.TABLEAU_SIZE, random);
+        for (int j = 0; j < Board.TABLEAU_SIZE; j += 1) {
+            int start = starts[columns[j]];
+            int size = 2 + encoding[start] + encoding[start + 1];
+            System.arraycopy(encoding, start, permuted, i, size);
+            i += size;
+        }
+        assertEquals(length, i);
+        return BoardState.fromBytes(permuted, 0, length).toBoard();
+    }
+
+    private static int[] shuffled(int size, SplittableRandom random) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i += 1) {
+            order[i] = i;
+        }
+        for (int i = size - 1; i > 0; i -= 1) {
+            int j = random.nextInt(i + 1);
+            int swap = order[i];
+            order[i] = order[j];
+            order[j] = swap;
+        }
+        return order;
+    }
+
+    private static void assertHashesMatch(Board board) {
+        assertEquals(board.computePositionHash(), board.positionHash());
+        assertEquals(board.computeCanonicalPositionHash(), board.canonicalHash());
+    }
+}
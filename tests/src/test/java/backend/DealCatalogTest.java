@@ -0,0 +1,116 @@
+package backend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DealCatalogTest {
+    private static final Verdict[] VERDICTS = Verdict.values();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void everySurveyedDealIsLookedUp() throws IOException {
+        SplittableRandom random = new SplittableRandom(1);
+        long first = 1_000;
+        int count = 3_000;
+        Verdict[] verdicts = new Verdict[count];
+        long[] nodes = new long[count];
+        int[] moves = new int[count];
+        /* Two surveys in no particular order, leaving every tenth deal out. */
+        List<String> even = new ArrayList<>(List.of("seed,verdict,nodes,micros,moves"));
+        List<String> odd = new ArrayList<>();
+        for (int i = count - 1; i >= 0; i -= 1) {
+            if (i % 10 == 5) {
+                continue;
+            }
+            verdicts[i] = VERDICTS[random.nextInt(VERDICTS.length)];
+            nodes[i] = random.nextLong(1L << random.nextInt(40));
+            moves[i] = verdicts[i] == Verdict.SOLVED ? random.nextInt(5_000) : 0;
+            (i % 2 == 0 ? even : odd).add((first + i) + "," + verdicts[i] + "," + nodes[i] + ",123," + moves[i]);
+        }
+        Path catalogPath = this.write(List.of(even, odd));
+
+        try (DealCatalog catalog = new DealCatalog(catalogPath)) {
+            assertEquals(first, catalog.getFirstDeal());
+            long winnable = 0;
+            for (int i = 0; i < count; i += 1) {
+                int record = catalog.lookup(first + i);
+                if (verdicts[i] == null) {
+                    assertNull(DealCatalog.verdict(record));
+                    continue;
+                }
+                assertEquals(verdicts[i], DealCatalog.verdict(record));
+                assertEquals(Math.min(moves[i], DealCatalog.MAX_MOVES), DealCatalog.moves(record));
+                assertEquals(DealCatalog.difficultyOf(nodes[i]), DealCatalog.difficulty(record));
+                winnable += verdicts[i] == Verdict.SOLVED ? 1 : 0;
+            }
+            assertEquals(winnable, catalog.getWinnableCount());
+            assertEquals(0, catalog.lookup(first - 1));
+            assertEquals(0, catalog.lookup(first + catalog.getCount()));
+        }
+    }
+
+    @Test
+    void sampledDealsAreWinnableAndWithinTheDifficulty() throws IOException {
+        SplittableRandom random = new SplittableRandom(2);
+        List<String> survey = new ArrayList<>();
+        for (int seed = 0; seed < 2_000; seed += 1) {
+            Verdict verdict = seed % 3 == 0 ? Verdict.UNSOLVABLE : Verdict.SOLVED;
+            survey.add(seed + "," + verdict + "," + random.nextLong(1L << 30) + ",1,100");
+        }
+        try (DealCatalog catalog = new DealCatalog(this.write(List.of(survey)))) {
+            for (int min = 0; min <= DealCatalog.MAX_DIFFICULTY; min += 37) {
+                int max = min + 40;
+                long candidates = catalog.getWinnableCount(min, max);
+                for (int i = 0; i < 50; i += 1) {
+                    long deal = catalog.sample(min, max, random);
+                    if (candidates == 0) {
+                        assertEquals(-1, deal);
+                        break;
+                    }
+                    int record = catalog.lookup(deal);
+                    assertEquals(Verdict.SOLVED, DealCatalog.verdict(record));
+                    int difficulty = DealCatalog.difficulty(record);
+                    assertTrue(difficulty >= min && difficulty <= max, "difficulty " + difficulty);
+                }
+            }
+        }
+    }
+
+    @Test
+    void aDealSurveyedTwiceIsRejected() throws IOException {
+        List<String> survey = List.of("1,SOLVED,10,1,90", "2,UNKNOWN,10,1,0", "1,SOLVED,10,1,90");
+        Path output = this.directory.resolve("deals.bin");
+        Path input = this.directory.resolve("survey.csv");
+        Files.write(input, survey);
+        assertThrows(IOException.class, () -> DealCatalogWriter.write(List.of(input), output));
+        assertFalse(Files.exists(output));
+    }
+
+    /* Catalog surveys, each given as its lines. */
+    private Path write(List<List<String>> surveys) throws IOException {
+        List<Path> inputs = new ArrayList<>();
+        for (List<String> lines : surveys) {
+            Path input = this.directory.resolve("survey" + inputs.size() + ".csv");
+            Files.write(input, lines);
+            inputs.add(input);
+        }
+        Path output = this.directory.resolve("deals.bin");
+        DealCatalogWriter.write(inputs, output);
+        return output;
+    }
+}
@@ -0,0 +1,101 @@
+package backend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameRecordTest {
+    private static final int INTERVAL = 16;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void everyPositionOfEveryGameIsReplayed() throws IOException {
+        Path records = this.directory.resolve("games.bin");
+        Path index = this.directory.resolve("games.bin.idx");
+        Board[] games = new Board[30];
+        try (GameRecordWriter writer = new GameRecordWriter(records, index, INTERVAL)) {
+            for (int i = 0; i < 20; i += 1) {
+                games[i] = greedy(i);
+                assertEquals(i, writer.append(games[i]));
+            }
+        }
+        /* A new writer appends after the games already written. */
+        try (GameRecordWriter writer = new GameRecordWriter(records, index, INTERVAL)) {
+            assertEquals(20, writer.getGameCount());
+            for (int i = 20; i < games.length; i += 1) {
+                games[i] = greedy(i);
+                assertEquals(i, writer.append(games[i]));
+            }
+        }
+
+        try (GameRecordReader reader = new GameRecordReader(records, index)) {
+            assertEquals(games.length, reader.getGameCount());
+            assertEquals(INTERVAL, reader.getCheckpointInterval());
+            for (int game = 0; game < games.length; game += 1) {
+                Board played = games[game];
+                int count = played.getMoveCount();
+                assertEquals(played.getDealNumber(), reader.getDealNumber(game));
+                assertEquals(count, reader.getMoveCount(game));
+
+                int[] moves = new int[count];
+                reader.getMoves(game, moves, count);
+                Board expected = new Board(played.getDealNumber());
+                for (int i = 0; i <= count; i += 1) {
+                    Board replayed = reader.replay(game, i);
+                    assertEquals(BoardState.of(expected), BoardState.of(replayed));
+                    assertEquals(played.getDealNumber(), replayed.getDealNumber());
+                    if (i < count) {
+                        assertEquals(played.getMove(i), moves[i]);
+                        assertEquals(played.getMove(i), reader.getMove(game, i));
+                        expected.apply(moves[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void aRecordFileWithAnotherIntervalIsRejected() throws IOException {
+        Path records = this.directory.resolve("games.bin");
+        Path index = this.directory.resolve("games.bin.idx");
+        try (GameRecordWriter writer = new GameRecordWriter(records, index, INTERVAL)) {
+            writer.append(greedy(1));
+        }
+        assertThrows(IOException.class, () -> new GameRecordWriter(records, index, INTERVAL * 2));
+    }
+
+    @Test
+    void anIndexWithoutItsRecordFileIsRejected() throws IOException {
+        Path records = this.directory.resolve("games.bin");
+        Path index = this.directory.resolve("games.bin.idx");
+        try (GameRecordWriter writer = new GameRecordWriter(records, index, INTERVAL)) {
+            writer.append(greedy(1));
+        }
+        Files.write(records, new byte[0]);
+        assertThrows(IOException.class, () -> new GameRecordWriter(records, index, INTERVAL));
+    }
+
+    /* A game played to its end by the greedy policy. */
+    private static Board greedy(long deal) {
+        Board board = new Board(deal);
+        GreedyPolicy policy = new GreedyPolicy();
+        policy.start(board);
+        int[] moves = new int[Move.MAX_MOVES];
+        while (!board.isWon() && board.getMoveCount() < 500) {
+            int count = board.generateMoves(moves);
+            int move = count == 0 ? -1 : policy.choose(board, moves, count);
+            if (move < 0 || !board.apply(move)) {
+                break;
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,86 @@
+package backend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class GameSnapshotTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void aRestoredGameHasTheSamePositionAndJournal() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (long deal = 0; deal < 50; deal += 1) {
+            Board board = Games.play(deal, random.nextInt(150), random);
+            for (int i = random.nextInt(5); i > 0 && board.canUndo(); i -= 1) {
+                board.undo();
+            }
+            Board restored = GameSnapshot.fromBytes(GameSnapshot.of(board).toBytes()).toBoard();
+            assertSameGame(board, restored);
+
+            /* The moves taken back can still be played again, and lead to the same positions. */
+            while (board.redo()) {
+                restored.redo();
+                assertEquals(BoardState.of(board), BoardState.of(restored));
+            }
+            assertFalse(restored.canRedo());
+        }
+    }
+
+    @Test
+    void aSnapshotOfABoardSnapshotEncodesTheSame() {
+        Board board = Games.play(3, 80, new SplittableRandom(2));
+        board.undo();
+        assertArrayEquals(GameSnapshot.of(board).toBytes(), GameSnapshot.of(board.snapshot()).toBytes());
+    }
+
+    @Test
+    void savingAndLoadingRoundTrips() throws IOException {
+        Path path = this.directory.resolve("autosave.bin");
+        Board board = Games.play(9, 60, new SplittableRandom(3));
+        GameSnapshot.of(board).save(path);
+        assertSameGame(board, GameSnapshot.load(path).toBoard());
+        assertFalse(Files.exists(AtomicFiles.temporary(path)));
+
+        board.undo();
+        GameSnapshot.of(board).save(path);
+        assertSameGame(board, GameSnapshot.load(path).toBoard());
+    }
+
+    @Test
+    void aCorruptSnapshotIsRejected() throws IOException {
+        Path path = this.directory.resolve("autosave.bin");
+        GameSnapshot.of(Games.play(9, 60, new SplittableRandom(4))).save(path);
+        byte[] bytes = Files.readAllBytes(path);
+        for (int i = 0; i < bytes.length; i += 7) {
+            byte[] corrupt = bytes.clone();
+            corrupt[i] ^= 0x10;
+            Files.write(path, corrupt);
+            assertThrows(IOException.class, () -> GameSnapshot.load(path));
+        }
+        Files.write(path, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> GameSnapshot.load(path));
+    }
+
+    private static void assertSameGame(Board expected, Board actual) {
+        assertEquals(BoardState.of(expected), BoardState.of(actual));
+        assertEquals(expected.getDealNumber(), actual.getDealNumber());
+        assertEquals(expected.positionHash(), actual.positionHash());
+        assertEquals(expected.getMoveCount(), actual.getMoveCount());
+        assertEquals(expected.canRedo(), actual.canRedo());
+        for (int i = 0; i < expected.getMoveCount(); i += 1) {
+            assertEquals(expected.getMove(i), actual.getMove(i));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package backend;
+
+import java.util.SplittableRandom;
+
+/* Games for the tests: random legal moves, the same for a given seed. */
+final class Games {
+    private Games() {
+    }
+
+    /* Deal a board and play up to count random legal moves on it, fewer if it runs out of moves. */
+    static Board play(long deal, int count, SplittableRandom random) {
+        Board board = new Board(deal);
+        int[] moves = new int[Move.MAX_MOVES];
+        for (int i = 0; i < count && !board.isWon(); i += 1) {
+            int legal = board.generateMoves(moves);
+            if (legal == 0) {
+                break;
+            }
+            board.apply(moves[random.nextInt(legal)]);
+        }
+        return board;
+    }
+}
@@ -0,0 +1,140 @@
+package backend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PlayerStatsTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void mergingRunsCountsAsPlayingThemInOrder() {
+        SplittableRandom random = new SplittableRandom(1);
+        for (int trial = 0; trial < 200; trial += 1) {
+            int games = random.nextInt(60);
+            boolean[] won = new boolean[games];
+            PlayerStats all = new PlayerStats();
+            for (int i = 0; i < games; i += 1) {
+                won[i] = random.nextInt(4) != 0;
+                all.add(won[i], 100 + i, 1_000L * i);
+            }
+
+            /* The same games, split into runs at random points. */
+            PlayerStats merged = new PlayerStats();
+            PlayerStats run = new PlayerStats();
+            for (int i = 0; i < games; i += 1) {
+                run.add(won[i], 100 + i, 1_000L * i);
+                if (random.nextInt(5) == 0) {
+                    merged.merge(run);
+                    run = new PlayerStats();
+                }
+            }
+            merged.merge(run);
+            assertSameStats(all, merged);
+        }
+    }
+
+    @Test
+    void savingAndLoadingRoundTrips() throws IOException {
+        PlayerStats stats = played(500, new SplittableRandom(2));
+        Path path = this.directory.resolve("stats.bin");
+        stats.save(path);
+        assertSameStats(stats, PlayerStats.load(path));
+        assertFalse(Files.exists(AtomicFiles.temporary(path)));
+
+        byte[] bytes = Files.readAllBytes(path);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(path, bytes);
+        assertThrows(IOException.class, () -> PlayerStats.load(path));
+    }
+
+    @Test
+    void theHistoryCatchesStatsUpAcrossReopens() throws IOException {
+        Path path = this.directory.resolve("history.bin");
+        SplittableRandom random = new SplittableRandom(3);
+        PlayerStats expected = new PlayerStats();
+        PlayerStats saved;
+        try (GameHistory history = new GameHistory(path)) {
+            for (int i = 0; i < 300; i += 1) {
+                appendRandom(history, expected, i, random);
+            }
+            saved = new PlayerStats(expected);
+            for (int i = 300; i < 450; i += 1) {
+                appendRandom(history, expected, i, random);
+            }
+        }
+
+        try (GameHistory history = new GameHistory(path)) {
+            assertEquals(450, history.getGameCount());
+            /* Stats saved part of the way read only the games after them. */
+            history.catchUp(saved);
+            assertSameStats(expected, saved);
+            PlayerStats rebuilt = new PlayerStats();
+            history.catchUp(rebuilt);
+            assertSameStats(expected, rebuilt);
+            assertThrows(IOException.class, () -> history.catchUp(played(451, random)));
+        }
+    }
+
+    @Test
+    void aTornLastRecordIsDropped() throws IOException {
+        Path path = this.directory.resolve("history.bin");
+        try (GameHistory history = new GameHistory(path)) {
+            history.append(1, true, 120, 60_000, 0);
+            history.append(2, false, 80, 30_000, 0);
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - GameHistory.RECORD_SIZE / 2);
+        }
+        try (GameHistory history = new GameHistory(path)) {
+            assertEquals(1, history.getGameCount());
+            assertEquals(GameHistory.HEADER_SIZE + GameHistory.RECORD_SIZE, Files.size(path));
+            history.append(3, true, 100, 50_000, 0);
+            PlayerStats stats = new PlayerStats();
+            history.catchUp(stats);
+            assertEquals(2, stats.getGames());
+            assertEquals(2, stats.getWins());
+            assertEquals(2, stats.getBestStreak());
+        }
+    }
+
+    private static PlayerStats played(int games, SplittableRandom random) {
+        PlayerStats stats = new PlayerStats();
+        for (int i = 0; i < games; i += 1) {
+            stats.add(random.nextBoolean(), 80 + random.nextInt(150), random.nextLong(3_600_000));
+        }
+        return stats;
+    }
+
+    private static void appendRandom(GameHistory history, PlayerStats stats, long deal, SplittableRandom random)
+            throws IOException {
+        boolean won = random.nextInt(3) != 0;
+        int moves = 80 + random.nextInt(150);
+        long millis = random.nextLong(3_600_000);
+        history.append(deal, won, moves, millis, 0);
+        stats.add(won, moves, millis);
+    }
+
+    private static void assertSameStats(PlayerStats expected, PlayerStats actual) {
+        assertEquals(expected.getGames(), actual.getGames());
+        assertEquals(expected.getWins(), actual.getWins());
+        assertEquals(expected.getCurrentStreak(), actual.getCurrentStreak());
+        assertEquals(expected.getBestStreak(), actual.getBestStreak());
+        assertEquals(expected.toString(), actual.toString());
+        for (double fraction = 0; fraction <= 1; fraction += 0.125) {
+            assertEquals(expected.getWinMillis(fraction), actual.getWinMillis(fraction));
+            assertEquals(expected.getWinMoves(fraction), actual.getWinMoves(fraction));
+        }
+    }
+}
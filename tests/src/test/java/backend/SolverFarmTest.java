@@ -0,0 +1,51 @@
+package backend;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolverFarmTest {
+    private static final int DEALS = 24;
+
+    @Test
+    void splitSearchesAgreeWithOneSolver(@TempDir Path directory) throws IOException {
+        /* A budget this small sends almost every deal to the split search. */
+        SolverFarm farm = new SolverFarm(4, 100, 1_000_000, 60_000, 16L << 20);
+        Path output = directory.resolve("survey.csv");
+        SurveySummary summary;
+        try {
+            summary = farm.survey(0, DEALS, output);
+        } finally {
+            farm.shutdown();
+        }
+        assertEquals(DEALS, summary.getDeals());
+
+        List<String> lines = Files.readAllLines(output);
+        assertEquals(DEALS + 1, lines.size());
+        Solver solver = new Solver(1_000_000, 60_000, 16L << 20);
+        int decided = 0;
+        for (String line : lines.subList(1, lines.size())) {
+            String[] fields = line.split(",");
+            long seed = Long.parseLong(fields[0]);
+            Verdict split = Verdict.valueOf(fields[1]);
+            Verdict single = solver.solve(new Board(seed)).getVerdict();
+            if (split == Verdict.SOLVED) {
+                assertNotEquals(Verdict.UNSOLVABLE, single, "deal " + seed);
+                assertTrue(Integer.parseInt(fields[4]) > 0, "deal " + seed);
+            }
+            if (split != Verdict.UNKNOWN && single != Verdict.UNKNOWN) {
+                assertEquals(single, split, "deal " + seed);
+                decided += 1;
+            }
+        }
+        assertTrue(decided > DEALS / 2);
+    }
+}
@@ -0,0 +1,50 @@
+package backend;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SolverTest {
+    private static final int DEALS = 40;
+    private static final long MAX_NODES = 300_000;
+    private static final long MAX_MILLIS = 60_000;
+    private static final long MAX_BYTES = 16L << 20;
+
+    @Test
+    void solvedLinesWinTheDeal() {
+        Solver solver = new Solver(MAX_NODES, MAX_MILLIS, MAX_BYTES);
+        int solved = 0;
+        for (long deal = 0; deal < DEALS; deal += 1) {
+            SolverResult result = solver.solve(new Board(deal));
+            if (result.getVerdict() != Verdict.SOLVED) {
+                continue;
+            }
+            Board board = new Board(deal);
+            for (int move : result.getMoves()) {
+                assertTrue(board.apply(move), "deal " + deal);
+            }
+            assertTrue(board.isWon(), "deal " + deal);
+            solved += 1;
+        }
+        assertTrue(solved > 0);
+    }
+
+    @Test
+    void lastTargetPruningKeepsTheVerdicts() {
+        Solver pruned = new Solver(MAX_NODES, MAX_MILLIS, MAX_BYTES);
+        Solver unpruned = new Solver(MAX_NODES, MAX_MILLIS, MAX_BYTES);
+        unpruned.setLastTargetPruning(false);
+        int decided = 0;
+        for (long deal = 0; deal < DEALS; deal += 1) {
+            Verdict withPruning = pruned.solve(new Board(deal)).getVerdict();
+            Verdict withoutPruning = unpruned.solve(new Board(deal)).getVerdict();
+            if (withPruning == Verdict.UNKNOWN || withoutPruning == Verdict.UNKNOWN) {
+                continue;
+            }
+            assertEquals(withoutPruning, withPruning, "deal " + deal);
+            decided += 1;
+        }
+        assertTrue(decided > DEALS / 2);
+    }
+}